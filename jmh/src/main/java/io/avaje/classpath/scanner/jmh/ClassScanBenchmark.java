@@ -0,0 +1,89 @@
+package io.avaje.classpath.scanner.jmh;
+
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.Scanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning for classes with cheap and expensive predicates.
+ * <p>
+ * Each invocation uses a new ClassLoader such that the classes are loaded by every scan.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassScanBenchmark {
+
+  private static final String MARKER = Fixtures.MARKER.replace('/', '.');
+
+  @Param({"2000"})
+  int classes;
+
+  private Path root;
+  private URLClassLoader classLoader;
+  private Scanner scanner;
+  private Class<?> marker;
+  private final Location location = new Location(Fixtures.LOCATION);
+
+  @Setup(Level.Trial)
+  public void generate() {
+    root = Fixtures.classes(Fixtures.tempDir("jmh-classes"), classes);
+  }
+
+  @Setup(Level.Invocation)
+  public void newClassLoader() throws Exception {
+    classLoader = new URLClassLoader(new URL[]{root.toUri().toURL()}, null);
+    scanner = new Scanner(classLoader);
+    marker = classLoader.loadClass(MARKER);
+  }
+
+  @TearDown(Level.Invocation)
+  public void closeClassLoader() throws IOException {
+    classLoader.close();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Fixtures.delete(root);
+  }
+
+  @Benchmark
+  public List<Class<?>> cheapPredicate() {
+    return scanner.scanForClasses(location, marker::isAssignableFrom);
+  }
+
+  @Benchmark
+  public List<Class<?>> expensivePredicate() {
+    return scanner.scanForClasses(location, type -> type.getDeclaredMethods().length == 0
+      && type.getDeclaredConstructors().length == 0
+      && marker.isAssignableFrom(type));
+  }
+
+  @Benchmark
+  public List<Class<?>> classInfoFilter() {
+    return scanner.scanForClasses(location, info -> info.interfaces().contains(MARKER), marker::isAssignableFrom);
+  }
+}
@@ -0,0 +1,52 @@
+package io.avaje.classpath.scanner.jmh;
+
+import io.avaje.classpath.scanner.internal.FileCopyUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading small (1KB) and large (4MB) resource content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyToStringBenchmark {
+
+  @Param({"1024", "4194304"})
+  int size;
+
+  private byte[] content;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    content = Fixtures.text(size);
+  }
+
+  @Benchmark
+  public String copyToString() {
+    return FileCopyUtils.copyToString(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public List<String> readLines() {
+    return FileCopyUtils.readLines(new ByteArrayInputStream(content), StandardCharsets.UTF_8);
+  }
+}
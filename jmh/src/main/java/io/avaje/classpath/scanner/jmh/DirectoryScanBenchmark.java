@@ -0,0 +1,71 @@
+package io.avaje.classpath.scanner.jmh;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.internal.scanner.classpath.FileSystemClassPathLocationScanner;
+import io.avaje.classpath.scanner.internal.scanner.filesystem.FileSystemScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning deep directory trees (fan out of 4 with 10 files per directory).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryScanBenchmark {
+
+  /**
+   * Depth 4 is 341 directories and depth 6 is 5461 directories.
+   */
+  @Param({"4", "6"})
+  int depth;
+
+  private Path root;
+  private URL locationUrl;
+  private Location fileSystemLocation;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    root = Fixtures.tree(Fixtures.tempDir("jmh-dir"), depth, 4, 10);
+    locationUrl = root.resolve(Fixtures.LOCATION).toUri().toURL();
+    fileSystemLocation = new Location("filesystem:" + root.resolve(Fixtures.LOCATION));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Fixtures.delete(root);
+  }
+
+  @Benchmark
+  public Set<String> classPathLocationScanner() {
+    return new FileSystemClassPathLocationScanner().findResourceNames(Fixtures.LOCATION, locationUrl);
+  }
+
+  @Benchmark
+  public List<Resource> fileSystemScanner() {
+    return new FileSystemScanner().scanForResources(fileSystemLocation, FilterResource.bySuffix(".sql"));
+  }
+}
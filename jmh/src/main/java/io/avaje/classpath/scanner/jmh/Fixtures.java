@@ -0,0 +1,206 @@
+package io.avaje.classpath.scanner.jmh;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generates synthetic jars, directory trees and class files such that the benchmarks run offline.
+ */
+final class Fixtures {
+
+  /**
+   * The package (location) that generated resources and classes are put under.
+   */
+  static final String LOCATION = "bench/gen";
+
+  /**
+   * The marker interface implemented by every second generated class.
+   */
+  static final String MARKER = LOCATION + "/Marker";
+
+  private Fixtures() {
+  }
+
+  /**
+   * Create a temporary directory for fixtures.
+   */
+  static Path tempDir(String prefix) {
+    try {
+      return Files.createTempDirectory(prefix);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Create a jar with the given number of entries spread over 100 packages under
+   * {@link #LOCATION} plus as many entries again in an unrelated package.
+   */
+  static Path jar(Path dir, int entries) {
+    Path jar = dir.resolve("fixture-" + entries + ".jar");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+      // directory entries as written by the jar tool
+      putEntry(out, "bench/", new byte[0]);
+      putEntry(out, LOCATION + "/", new byte[0]);
+      for (int i = 0; i < Math.min(entries, 100); i++) {
+        putEntry(out, LOCATION + "/p" + i + "/", new byte[0]);
+      }
+      byte[] content = "x".getBytes(StandardCharsets.UTF_8);
+      for (int i = 0; i < entries; i++) {
+        putEntry(out, LOCATION + "/p" + (i % 100) + "/R" + i + ".txt", content);
+        putEntry(out, "other/p" + (i % 100) + "/R" + i + ".txt", content);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return jar;
+  }
+
+  private static void putEntry(ZipOutputStream out, String name, byte[] content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content);
+    out.closeEntry();
+  }
+
+  /**
+   * Create a directory tree under {@link #LOCATION} of the given depth where each
+   * directory has fanOut sub directories and filesPerDir files.
+   */
+  static Path tree(Path root, int depth, int fanOut, int filesPerDir) {
+    try {
+      Path dir = root.resolve(LOCATION);
+      Files.createDirectories(dir);
+      populate(dir, depth, fanOut, filesPerDir);
+      return root;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void populate(Path dir, int depth, int fanOut, int filesPerDir) throws IOException {
+    for (int i = 0; i < filesPerDir; i++) {
+      Files.write(dir.resolve("R" + i + ".sql"), new byte[0]);
+    }
+    if (depth > 0) {
+      for (int i = 0; i < fanOut; i++) {
+        Path child = dir.resolve("d" + i);
+        Files.createDirectory(child);
+        populate(child, depth - 1, fanOut, filesPerDir);
+      }
+    }
+  }
+
+  /**
+   * Generate the given number of class files under {@link #LOCATION} where every second
+   * class implements {@link #MARKER}.
+   */
+  static Path classes(Path root, int count) {
+    try {
+      Path dir = root.resolve(LOCATION);
+      Files.createDirectories(dir);
+      Files.write(root.resolve(MARKER + ".class"), classFile(MARKER, 0x0601, null));
+      for (int i = 0; i < count; i++) {
+        String name = LOCATION + "/C" + i;
+        String marker = (i % 2 == 0) ? MARKER : null;
+        Files.write(root.resolve(name + ".class"), classFile(name, 0x0021, marker));
+      }
+      return root;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Return the bytes of a minimal class file (no fields or methods) extending java.lang.Object.
+   */
+  static byte[] classFile(String internalName, int accessFlags, String interfaceName) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(55);
+      out.writeShort(interfaceName == null ? 5 : 7);
+      // #1 this class, #3 super class, #5 interface
+      out.writeByte(7);
+      out.writeShort(2);
+      out.writeByte(1);
+      out.writeUTF(internalName);
+      out.writeByte(7);
+      out.writeShort(4);
+      out.writeByte(1);
+      out.writeUTF("java/lang/Object");
+      if (interfaceName != null) {
+        out.writeByte(7);
+        out.writeShort(6);
+        out.writeByte(1);
+        out.writeUTF(interfaceName);
+      }
+      out.writeShort(accessFlags);
+      out.writeShort(1);
+      out.writeShort(3);
+      if (interfaceName == null) {
+        out.writeShort(0);
+      } else {
+        out.writeShort(1);
+        out.writeShort(5);
+      }
+      out.writeShort(0); // fields
+      out.writeShort(0); // methods
+      out.writeShort(0); // attributes
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Return text content of approximately the given size in bytes with a leading UTF-8 BOM.
+   */
+  static byte[] text(int size) {
+    StringBuilder sb = new StringBuilder(size + 64);
+    sb.append('\ufeff');
+    int line = 0;
+    while (sb.length() < size) {
+      sb.append("insert into some_table (id, name) values (").append(line++).append(", 'name');\n");
+    }
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Delete the directory and its contents.
+   */
+  static void delete(Path root) {
+    if (root == null) {
+      return;
+    }
+    try {
+      Files.walkFileTree(root, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+          Files.delete(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+          Files.delete(dir);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
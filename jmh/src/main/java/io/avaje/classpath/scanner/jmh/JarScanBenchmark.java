@@ -0,0 +1,74 @@
+package io.avaje.classpath.scanner.jmh;
+
+import io.avaje.classpath.scanner.internal.scanner.classpath.JarFileClassPathLocationScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning a location in jars with 1k, 10k and 100k entries under the location.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JarScanBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  int entries;
+
+  private Path dir;
+  private URL locationUrl;
+  private URL subLocationUrl;
+  private JarFileClassPathLocationScanner warmScanner;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    dir = Fixtures.tempDir("jmh-jar");
+    Path jar = Fixtures.jar(dir, entries);
+    String jarUrl = "jar:" + jar.toUri() + "!/";
+    locationUrl = new URL(jarUrl + Fixtures.LOCATION);
+    subLocationUrl = new URL(jarUrl + Fixtures.LOCATION + "/p7");
+    warmScanner = new JarFileClassPathLocationScanner();
+    warmScanner.findResourceNames(Fixtures.LOCATION, locationUrl);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Fixtures.delete(dir);
+  }
+
+  /**
+   * First scan of the jar (reading the jar entries).
+   */
+  @Benchmark
+  public Set<String> coldScan() throws IOException {
+    return new JarFileClassPathLocationScanner().findResourceNames(Fixtures.LOCATION, locationUrl);
+  }
+
+  /**
+   * Scan of another location in a jar that has already been scanned.
+   */
+  @Benchmark
+  public Set<String> warmScanSubLocation() throws IOException {
+    return warmScanner.findResourceNames(Fixtures.LOCATION + "/p7", subLocationUrl);
+  }
+}
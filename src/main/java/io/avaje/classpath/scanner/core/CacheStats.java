@@ -0,0 +1,81 @@
+package io.avaje.classpath.scanner.core;
+
+/**
+ * Statistics of the caches of a Scanner.
+ * <p>
+ * A hit is a lookup served from the cache (including one waiting for a load in progress) and a
+ * miss is a lookup that loaded the value. An eviction is an entry removed to keep the cache
+ * within its maximum size.
+ * </p>
+ */
+public final class CacheStats {
+
+  /**
+   * Statistics of a cache that has not been used.
+   */
+  public static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0);
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int size;
+
+  /**
+   * Create with the given counts.
+   */
+  public CacheStats(long hitCount, long missCount, long evictionCount, int size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.size = size;
+  }
+
+  /**
+   * Return the number of lookups served from the cache.
+   */
+  public long hitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Return the number of lookups that loaded the value.
+   */
+  public long missCount() {
+    return missCount;
+  }
+
+  /**
+   * Return the number of entries evicted to keep the cache within its maximum size.
+   */
+  public long evictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * Return the current number of entries.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Return the ratio of hits to lookups or 1 when there have been no lookups.
+   */
+  public double hitRate() {
+    long lookups = hitCount + missCount;
+    return lookups == 0 ? 1.0 : (double) hitCount / lookups;
+  }
+
+  /**
+   * Return the sum of these statistics and the given statistics.
+   */
+  public CacheStats plus(CacheStats other) {
+    return new CacheStats(hitCount + other.hitCount, missCount + other.missCount,
+      evictionCount + other.evictionCount, size + other.size);
+  }
+
+  @Override
+  public String toString() {
+    return "hits:" + hitCount + " misses:" + missCount + " evictions:" + evictionCount + " size:" + size;
+  }
+}
@@ -0,0 +1,93 @@
+package io.avaje.classpath.scanner.core;
+
+import java.util.List;
+
+/**
+ * Lightweight information about a class read from its class file header.
+ * <p>
+ * This is obtained without loading the class and can be used to filter
+ * candidate classes prior to them being loaded by the ClassLoader.
+ * </p>
+ */
+public interface ClassInfo {
+
+  /**
+   * Return the binary name of the class (e.g. <code>org.example.Foo$Bar</code>).
+   */
+  String name();
+
+  /**
+   * Return the binary name of the super class or null for <code>java.lang.Object</code>
+   * and <code>module-info</code>.
+   */
+  String superName();
+
+  /**
+   * Return the binary names of the directly implemented interfaces.
+   */
+  List<String> interfaces();
+
+  /**
+   * Return the binary names of the runtime visible annotations of the class
+   * (e.g. <code>org.example.Controller</code>).
+   * <p>
+   * These are the annotations directly on the class and not those inherited
+   * from super classes via <code>@Inherited</code>.
+   * </p>
+   */
+  List<String> annotations();
+
+  /**
+   * Return the access flags as per the class file format (e.g. <code>0x0001</code> for public).
+   */
+  int accessFlags();
+
+  /**
+   * Return true if the class is public.
+   */
+  default boolean isPublic() {
+    return (accessFlags() & 0x0001) != 0;
+  }
+
+  /**
+   * Return true if this is an interface (including annotation types).
+   */
+  default boolean isInterface() {
+    return (accessFlags() & 0x0200) != 0;
+  }
+
+  /**
+   * Return true if the class is abstract (including interfaces).
+   */
+  default boolean isAbstract() {
+    return (accessFlags() & 0x0400) != 0;
+  }
+
+  /**
+   * Return true if this is an annotation type.
+   */
+  default boolean isAnnotation() {
+    return (accessFlags() & 0x2000) != 0;
+  }
+
+  /**
+   * Return true if this is an enum.
+   */
+  default boolean isEnum() {
+    return (accessFlags() & 0x4000) != 0;
+  }
+
+  /**
+   * Return true if the class is synthetic (generated by the compiler).
+   */
+  default boolean isSynthetic() {
+    return (accessFlags() & 0x1000) != 0;
+  }
+
+  /**
+   * Return true if this is a concrete class (not an interface and not abstract).
+   */
+  default boolean isConcrete() {
+    return !isAbstract() && !isInterface();
+  }
+}
@@ -0,0 +1,52 @@
+package io.avaje.classpath.scanner.core;
+
+import java.net.URL;
+
+/**
+ * Reference to a class found by scanning that has not been loaded yet.
+ * <p>
+ * The class is only loaded (and then cached) when {@link #load()} is called such that callers
+ * can filter on the class name cheaply and only load the classes they actually need.
+ * </p>
+ * <pre>{@code
+ *
+ *   List<Class<?>> controllers = scanner.scanForClassRefs("org/example").stream()
+ *     .filter(ref -> ref.name().endsWith("Controller"))
+ *     .map(ClassRef::load)
+ *     .collect(Collectors.toList());
+ *
+ * }</pre>
+ */
+public interface ClassRef {
+
+  /**
+   * Return the binary name of the class (e.g. <code>org.example.Foo$Bar</code>).
+   */
+  String name();
+
+  /**
+   * Return the resource name of the class file (e.g. <code>org/example/Foo$Bar.class</code>).
+   */
+  String resourceName();
+
+  /**
+   * Return the URL of the classpath root (jar or directory) the class was found in.
+   * <p>
+   * This is the same root as {@link ScannedResource#root()} such that the class file is the
+   * resource name relative to it. This is null when not known (e.g. Android).
+   * </p>
+   */
+  URL root();
+
+  /**
+   * Return true if the class has already been loaded via this reference.
+   */
+  boolean isLoaded();
+
+  /**
+   * Load the class (if not already loaded) and return it.
+   *
+   * @throws IllegalStateException when the class can not be loaded.
+   */
+  Class<?> load();
+}
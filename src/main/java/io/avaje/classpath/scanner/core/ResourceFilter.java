@@ -0,0 +1,163 @@
+package io.avaje.classpath.scanner.core;
+
+import io.avaje.classpath.scanner.internal.ResourceFilterMatcher;
+
+/**
+ * Structured filter for resources that is pushed down into the scanning of jars and directories.
+ * <p>
+ * Unlike an opaque <code>Predicate&lt;String&gt;</code> the scanners can use this filter to skip
+ * directories that can not contain a match and to skip jar entries without creating a String for them.
+ * </p>
+ * <p>
+ * All parts of the filter are relative to the location being scanned and all must match.
+ * </p>
+ * <pre>{@code
+ *
+ *   // sql files directly in db/migration or one level below
+ *   ResourceFilter filter = ResourceFilter.bySuffix(".sql").maxDepth(1);
+ *   scanner.scanForResources(new Location("db/migration"), filter);
+ *
+ * }</pre>
+ */
+public final class ResourceFilter {
+
+  private static final ResourceFilter ALL = new ResourceFilter(null, null, null, -1);
+
+  private final String directory;
+  private final String suffix;
+  private final String glob;
+  private final int maxDepth;
+
+  private ResourceFilter(String directory, String suffix, String glob, int maxDepth) {
+    this.directory = directory;
+    this.suffix = suffix;
+    this.glob = glob;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Return a filter that matches all resources.
+   */
+  public static ResourceFilter all() {
+    return ALL;
+  }
+
+  /**
+   * Return a filter matching resources with a file name ending with the given suffix.
+   */
+  public static ResourceFilter bySuffix(String suffix) {
+    return ALL.suffix(suffix);
+  }
+
+  /**
+   * Return a filter matching resources with a file name matching the given glob.
+   */
+  public static ResourceFilter byGlob(String glob) {
+    return ALL.glob(glob);
+  }
+
+  /**
+   * Return a filter matching resources in the given sub directory of the location (or below).
+   */
+  public static ResourceFilter inDirectory(String directory) {
+    return ALL.directory(directory);
+  }
+
+  /**
+   * Return a copy of this filter also matching the file name suffix (e.g. <code>.sql</code>).
+   */
+  public ResourceFilter suffix(String suffix) {
+    return new ResourceFilter(directory, suffix, glob, maxDepth);
+  }
+
+  /**
+   * Return a copy of this filter also matching the file name against the glob.
+   * <p>
+   * The glob supports <code>*</code> matching any characters and <code>?</code>
+   * matching a single character (e.g. <code>V*__*.sql</code>).
+   * </p>
+   */
+  public ResourceFilter glob(String glob) {
+    return new ResourceFilter(directory, suffix, glob, maxDepth);
+  }
+
+  /**
+   * Return a copy of this filter only matching resources in the given sub directory of the
+   * location or below (e.g. <code>v2</code> or <code>v2/postgres</code>).
+   */
+  public ResourceFilter directory(String directory) {
+    String dir = trimSlashes(directory.replace('\\', '/'));
+    return new ResourceFilter(dir.isEmpty() ? null : dir, suffix, glob, maxDepth);
+  }
+
+  /**
+   * Return a copy of this filter only matching resources at most this many directories below
+   * the location. A max depth of 0 only matches resources directly in the location.
+   */
+  public ResourceFilter maxDepth(int maxDepth) {
+    return new ResourceFilter(directory, suffix, glob, maxDepth);
+  }
+
+  /**
+   * Return the sub directory (relative to the location) or null if not filtering by directory.
+   */
+  public String directory() {
+    return directory;
+  }
+
+  /**
+   * Return the file name suffix or null if not filtering by suffix.
+   */
+  public String suffix() {
+    return suffix;
+  }
+
+  /**
+   * Return the file name glob or null if not filtering by glob.
+   */
+  public String glob() {
+    return glob;
+  }
+
+  /**
+   * Return the maximum depth or -1 for unlimited.
+   */
+  public int maxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Return true if the file name (without directories) matches the suffix and glob.
+   */
+  public boolean matchesFileName(String fileName) {
+    return ResourceFilterMatcher.matchesFileName(this, fileName, 0);
+  }
+
+  /**
+   * Return true if the resource name found under the location matches the filter.
+   *
+   * @param location     The path of the location being scanned (without trailing slash).
+   * @param resourceName The resource name which starts with the location.
+   */
+  public boolean matches(String location, String resourceName) {
+    int start = location.isEmpty() ? 0 : location.length() + 1;
+    return start <= resourceName.length() && ResourceFilterMatcher.matchesRelativeFrom(this, resourceName, start);
+  }
+
+  @Override
+  public String toString() {
+    return "ResourceFilter{directory=" + directory + ", suffix=" + suffix + ", glob=" + glob + ", maxDepth=" + maxDepth + '}';
+  }
+
+  private static String trimSlashes(String path) {
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    return path.substring(start, end);
+  }
+}
@@ -0,0 +1,85 @@
+package io.avaje.classpath.scanner.core;
+
+import io.avaje.classpath.scanner.Resource;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Watches a <code>filesystem:</code> location keeping an index of its resources up to date.
+ * <p>
+ * The directory tree is walked once when the watch is created and from then on the index is
+ * updated incrementally from file system change events. Queries of the resources do not walk
+ * the tree.
+ * </p>
+ * <pre>{@code
+ *
+ *   try (ResourceWatch watch = scanner.watch("filesystem:/opt/app/sql")) {
+ *     watch.addListener((change, resourceName) -> log.info(change + " " + resourceName));
+ *     ...
+ *     List<Resource> sql = watch.resources(FilterResource.bySuffix(".sql"));
+ *   }
+ *
+ * }</pre>
+ */
+public interface ResourceWatch extends AutoCloseable {
+
+  /**
+   * The kind of change to a resource.
+   */
+  enum Change {
+
+    /**
+     * A resource was added.
+     */
+    ADDED,
+
+    /**
+     * The content of a resource was modified.
+     */
+    MODIFIED,
+
+    /**
+     * A resource was deleted.
+     */
+    DELETED
+  }
+
+  /**
+   * Listener of changes to the watched resources.
+   * <p>
+   * Changes are delivered on the thread of the watch and listeners should return quickly.
+   * </p>
+   */
+  @FunctionalInterface
+  interface Listener {
+
+    /**
+     * The resource with the given name was added, modified or deleted.
+     */
+    void changed(Change change, String resourceName);
+  }
+
+  /**
+   * Return the resources currently in the index that match the predicate (sorted by name).
+   *
+   * @param predicate The predicate used to match resource names.
+   */
+  List<Resource> resources(Predicate<String> predicate);
+
+  /**
+   * Add a listener of changes to the resources.
+   */
+  void addListener(Listener listener);
+
+  /**
+   * Remove a listener of changes to the resources.
+   */
+  void removeListener(Listener listener);
+
+  /**
+   * Stop watching.
+   */
+  @Override
+  void close();
+}
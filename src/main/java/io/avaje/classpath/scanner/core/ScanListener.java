@@ -0,0 +1,86 @@
+package io.avaje.classpath.scanner.core;
+
+import java.net.URL;
+
+/**
+ * Listener receiving events with timings and counts as scanning occurs.
+ * <p>
+ * Register via {@link Scanner.Builder#listener(ScanListener)} to report scan cost to a metrics
+ * system or to find slow jars and directories. Events can be received concurrently from multiple
+ * threads so implementations must be thread safe and should be fast.
+ * </p>
+ */
+public interface ScanListener {
+
+  /**
+   * A classpath location was resolved to its physical URLs.
+   *
+   * @param location The location being scanned.
+   * @param urlCount The number of physical URLs (jars and directories) for the location.
+   * @param nanos    The time taken to resolve the location.
+   * @param cacheHit True if the URLs were already known (cached or from a snapshot).
+   */
+  default void locationResolved(Location location, int urlCount, long nanos, boolean cacheHit) {
+    // do nothing by default
+  }
+
+  /**
+   * A physical URL (jar or directory) of a location was scanned.
+   *
+   * @param location   The location being scanned.
+   * @param url        The physical URL.
+   * @param protocol   The protocol of the URL (e.g. file, jar or filesystem).
+   * @param entryCount The number of resource names found under the URL.
+   * @param nanos      The time taken to scan the URL.
+   * @param cacheHit   True if the resource names were already known (cached or from a snapshot).
+   */
+  default void rootScanned(Location location, URL url, String protocol, int entryCount, long nanos, boolean cacheHit) {
+    // do nothing by default
+  }
+
+  /**
+   * The resource names found for a location were filtered by the resource predicate.
+   * <p>
+   * Not reported when scanning with a {@link ResourceFilter} as that filter is applied while
+   * scanning each root and the number of resources not matching it is not known.
+   * </p>
+   *
+   * @param location   The location being scanned.
+   * @param foundCount The number of resource names found.
+   * @param matchCount The number of resource names matching the predicate.
+   */
+  default void resourcesFiltered(Location location, int foundCount, int matchCount) {
+    // do nothing by default
+  }
+
+  /**
+   * A class was loaded by the ClassLoader.
+   *
+   * @param className The name of the class.
+   * @param nanos     The time taken to load the class.
+   */
+  default void classLoaded(String className, long nanos) {
+    // do nothing by default
+  }
+
+  /**
+   * A class failed to load and is ignored.
+   *
+   * @param className The name of the class.
+   * @param error     The error loading the class.
+   */
+  default void classLoadFailed(String className, Throwable error) {
+    // do nothing by default
+  }
+
+  /**
+   * A class was rejected.
+   *
+   * @param className The name of the class.
+   * @param loaded    False when rejected by the class filter before loading, true when rejected
+   *                  by the class predicate after loading.
+   */
+  default void classRejected(String className, boolean loaded) {
+    // do nothing by default
+  }
+}
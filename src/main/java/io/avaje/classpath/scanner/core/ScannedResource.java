@@ -0,0 +1,51 @@
+package io.avaje.classpath.scanner.core;
+
+import io.avaje.classpath.scanner.Resource;
+
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.stream.Stream;
+
+/**
+ * A resource found by scanning that remembers where it was found.
+ * <p>
+ * Classpath resources are read directly from the jar or directory they were scanned in
+ * rather than searching the ClassLoader hierarchy again, such that the content read is
+ * always that of the resource that was scanned (and not another resource of the same
+ * name earlier on the classpath).
+ * </p>
+ * <pre>{@code
+ *
+ *   for (Resource resource : scanner.scanForResources("db/migration", FilterResource.bySuffix(".sql"))) {
+ *     byte[] content = ((ScannedResource) resource).loadAsBytes();
+ *     ...
+ *   }
+ *
+ * }</pre>
+ */
+public interface ScannedResource extends Resource {
+
+  /**
+   * Return the URL of the classpath root (jar or directory) the resource was found in.
+   * <p>
+   * This is null when the resource was not found on the classpath (e.g. filesystem).
+   * </p>
+   */
+  URL root();
+
+  /**
+   * Load the content of the resource as bytes.
+   *
+   * @throws java.io.UncheckedIOException when the resource can not be read.
+   */
+  byte[] loadAsBytes();
+
+  /**
+   * Return a lazily read stream of the lines of the resource.
+   * <p>
+   * The resource is read as the stream is consumed and is closed when the stream is
+   * closed, so use it in a try-with-resources statement.
+   * </p>
+   */
+  Stream<String> lines(Charset charset);
+}
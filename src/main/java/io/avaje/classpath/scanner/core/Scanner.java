@@ -18,30 +18,60 @@ package io.avaje.classpath.scanner.core;
 import io.avaje.classpath.scanner.Resource;
 import io.avaje.classpath.scanner.internal.EnvironmentDetection;
 import io.avaje.classpath.scanner.internal.ResourceAndClassScanner;
+import io.avaje.classpath.scanner.internal.ScanOptions;
 import io.avaje.classpath.scanner.internal.scanner.classpath.ClassPathScanner;
 import io.avaje.classpath.scanner.internal.scanner.classpath.android.AndroidScanner;
 import io.avaje.classpath.scanner.internal.scanner.filesystem.FileSystemScanner;
 
+import java.lang.annotation.Annotation;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Scanner for Resources and Classes.
+ * <p>
+ * The scanner caches scan results and holds only a weak reference to its ClassLoader. Call
+ * {@link #trim()} to free the cached scan state once startup scanning is complete or
+ * {@link #close()} when the scanner is no longer used.
+ * </p>
  */
-public class Scanner implements io.avaje.classpath.scanner.ClassPathScanner {
+public class Scanner implements io.avaje.classpath.scanner.ClassPathScanner, AutoCloseable {
 
   private final ResourceAndClassScanner resourceAndClassScanner;
 
-  private final FileSystemScanner fileSystemScanner = new FileSystemScanner();
+  private final FileSystemScanner fileSystemScanner;
 
   public Scanner(ClassLoader classLoader) {
+    this(classLoader, new ScanOptions());
+  }
+
+  private Scanner(ClassLoader classLoader, ScanOptions options) {
+    this.fileSystemScanner = new FileSystemScanner(options.listener());
     if (EnvironmentDetection.isAndroid()) {
       resourceAndClassScanner = new AndroidScanner(classLoader);
     } else {
-      resourceAndClassScanner = new ClassPathScanner(classLoader);
+      resourceAndClassScanner = new ClassPathScanner(classLoader, options);
     }
   }
 
+  /**
+   * Return a builder for a Scanner with options controlling how it scans.
+   *
+   * @param classLoader The ClassLoader used to find resources and load classes.
+   */
+  public static Builder builder(ClassLoader classLoader) {
+    return new Builder(classLoader);
+  }
+
   /**
    * Scans this location for resources matching the given predicate.
    * <p>
@@ -76,6 +106,125 @@ public class Scanner implements io.avaje.classpath.scanner.ClassPathScanner {
     return scanForResources(new Location(location), predicate);
   }
 
+  /**
+   * Scans this location for resources matching the given structured filter.
+   * <p>
+   * The filter is pushed down into the scanning such that directories that can not contain a
+   * match are not walked and jar entries outside the filter directory are not examined.
+   * </p>
+   *
+   * @param location The location to start searching. Subdirectories are also searched.
+   * @param filter   The filter used to match resources relative to the location.
+   * @return The resources that were found.
+   */
+  public List<Resource> scanForResources(Location location, ResourceFilter filter) {
+    if (location.isFileSystem()) {
+      return fileSystemScanner.scanForResources(location, filter);
+    }
+    return resourceAndClassScanner.scanForResources(location, filter);
+  }
+
+  /**
+   * Scans this location for resources matching the given structured filter.
+   *
+   * @param location The location to start searching. Subdirectories are also searched.
+   * @param filter   The filter used to match resources relative to the location.
+   * @return The resources that were found.
+   */
+  public List<Resource> scanForResources(String location, ResourceFilter filter) {
+    return scanForResources(new Location(location), filter);
+  }
+
+  /**
+   * Scans multiple locations for resources each matching its own predicate.
+   * <p>
+   * The physical location URLs of all the locations are grouped by their classpath root (jar or
+   * directory). Each jar is indexed once and serves all the locations in it. A location enclosed
+   * by another location in the same root (e.g. <code>org/example</code> and <code>org/example/web</code>)
+   * takes its resources from the walk of the enclosing location rather than walking again.
+   * </p>
+   *
+   * @param locations The locations to scan with the predicate used to match resource names of each.
+   * @return The resources found for each location (in the iteration order of the given map).
+   */
+  public Map<Location, List<Resource>> scanAll(Map<Location, Predicate<String>> locations) {
+    Map<Location, Predicate<String>> classPathLocations = new LinkedHashMap<>();
+    locations.forEach((location, predicate) -> {
+      if (!location.isFileSystem()) {
+        classPathLocations.put(location, predicate);
+      }
+    });
+    Map<Location, List<Resource>> found = classPathLocations.isEmpty()
+      ? Collections.emptyMap()
+      : resourceAndClassScanner.scanAll(classPathLocations);
+    Map<Location, List<Resource>> result = new LinkedHashMap<>();
+    locations.forEach((location, predicate) -> result.put(location,
+      location.isFileSystem() ? fileSystemScanner.scanForResources(location, predicate) : found.get(location)));
+    return result;
+  }
+
+  /**
+   * Watch this <code>filesystem:</code> location keeping an index of its resources up to date.
+   * <p>
+   * The directory tree is walked once and then kept up to date from file system change events
+   * such that polling for new resources via {@link ResourceWatch#resources(Predicate)} does not
+   * walk the tree. Listeners can be added to receive the added, modified and deleted resources.
+   * </p>
+   *
+   * @param location The filesystem location to watch. Subdirectories are also watched.
+   * @return The watch which should be closed when no longer required.
+   * @throws IllegalArgumentException when the location is not a readable filesystem directory.
+   */
+  public ResourceWatch watch(Location location) {
+    if (!location.isFileSystem()) {
+      throw new IllegalArgumentException("Only filesystem: locations can be watched but got " + location);
+    }
+    return fileSystemScanner.watch(location);
+  }
+
+  /**
+   * Watch this <code>filesystem:</code> location keeping an index of its resources up to date.
+   *
+   * @param location The filesystem location to watch. Subdirectories are also watched.
+   * @return The watch which should be closed when no longer required.
+   */
+  public ResourceWatch watch(String location) {
+    return watch(new Location(location));
+  }
+
+  /**
+   * Streams the resources at this location matching the given predicate.
+   * <p>
+   * Unlike {@link #scanForResources(Location, Predicate)} this does not need to collect all the
+   * resource names first. When not sorted resources are emitted as the jars and directories of the
+   * location are scanned, such that a short-circuiting operation like <code>findFirst()</code> or
+   * <code>limit()</code> stops scanning early.
+   * </p>
+   *
+   * @param location  The location to start searching. Subdirectories are also searched.
+   * @param predicate The predicate used to match resource names.
+   * @param sorted    True to return the resources sorted (which requires all names to be collected).
+   * @return The stream of resources.
+   */
+  public Stream<Resource> streamResources(Location location, Predicate<String> predicate, boolean sorted) {
+    if (location.isFileSystem()) {
+      return fileSystemScanner.streamResources(location, predicate, sorted);
+    }
+    return resourceAndClassScanner.streamResources(location, predicate, sorted);
+  }
+
+  /**
+   * Streams the resources at this location matching the given predicate.
+   *
+   * @param location  The location to start searching. Subdirectories are also searched.
+   * @param predicate The predicate used to match resource names.
+   * @param sorted    True to return the resources sorted (which requires all names to be collected).
+   * @return The stream of resources.
+   */
+  public Stream<Resource> streamResources(String location, Predicate<String> predicate, boolean sorted) {
+    return streamResources(new Location(location), predicate, sorted);
+  }
+
   /**
    * Scans the classpath for classes under the specified package matching the given predicate.
    *
@@ -99,4 +248,360 @@ public class Scanner implements io.avaje.classpath.scanner.ClassPathScanner {
     return scanForClasses(new Location(location), predicate);
   }
 
+  /**
+   * Scans the classpath for classes under the specified package first filtering on the class file header.
+   * <p>
+   * The class filter is tested against the {@link ClassInfo} read from the class file without loading the class.
+   * Only the classes that pass the class filter are loaded and then tested with the predicate.
+   * </p>
+   *
+   * @param location    The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param classFilter The filter applied to the class file header prior to loading the class.
+   * @param predicate   The predicate used to match scanned classes.
+   * @return The classes found matching the class filter and predicate
+   */
+  public List<Class<?>> scanForClasses(Location location, Predicate<ClassInfo> classFilter, Predicate<Class<?>> predicate) {
+    return resourceAndClassScanner.scanForClasses(location, classFilter, predicate);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package first filtering on the class file header.
+   *
+   * @param location    The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param classFilter The filter applied to the class file header prior to loading the class.
+   * @param predicate   The predicate used to match scanned classes.
+   * @return The classes found matching the class filter and predicate
+   */
+  public List<Class<?>> scanForClasses(String location, Predicate<ClassInfo> classFilter, Predicate<Class<?>> predicate) {
+    return scanForClasses(new Location(location), classFilter, predicate);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package that are annotated with the annotation.
+   * <p>
+   * The annotations are read from the class files (in jars and directories) building an index of
+   * annotation to class names such that only the annotated classes are loaded. The annotation must
+   * have runtime retention and only classes directly annotated are returned (not those inheriting
+   * an <code>@Inherited</code> annotation from a super class).
+   * </p>
+   *
+   * @param location   The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param annotation The annotation the classes are annotated with.
+   * @return The annotated classes sorted by name.
+   */
+  public List<Class<?>> scanForAnnotatedClasses(Location location, Class<? extends Annotation> annotation) {
+    return resourceAndClassScanner.scanForAnnotatedClasses(location, annotation);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package that are annotated with the annotation.
+   *
+   * @param location   The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param annotation The annotation the classes are annotated with.
+   * @return The annotated classes sorted by name.
+   */
+  public List<Class<?>> scanForAnnotatedClasses(String location, Class<? extends Annotation> annotation) {
+    return scanForAnnotatedClasses(new Location(location), annotation);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package that extend or implement the type
+   * (directly or transitively) loading only the matching subtypes.
+   * <p>
+   * The subtypes are resolved from the super class and interface names in the class files, such
+   * that unrelated classes and the subtypes rejected by the class filter are not loaded.
+   * </p>
+   * <pre>{@code
+   *
+   *   // the concrete implementations (not abstract classes or interfaces)
+   *   List<Class<? extends Migration>> migrations =
+   *     scanner.scanForSubtypes("org/example", Migration.class, ClassInfo::isConcrete);
+   *
+   * }</pre>
+   *
+   * @param location    The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param type        The class or interface.
+   * @param classFilter The filter applied to the subtypes prior to loading them or null for all the subtypes.
+   * @return The subtypes sorted by name.
+   */
+  public <T> List<Class<? extends T>> scanForSubtypes(Location location, Class<T> type, Predicate<ClassInfo> classFilter) {
+    return resourceAndClassScanner.scanForSubtypes(location, type, classFilter);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package that extend or implement the type
+   * (directly or transitively) loading only the matching subtypes.
+   *
+   * @param location    The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param type        The class or interface.
+   * @param classFilter The filter applied to the subtypes prior to loading them or null for all the subtypes.
+   * @return The subtypes sorted by name.
+   */
+  public <T> List<Class<? extends T>> scanForSubtypes(String location, Class<T> type, Predicate<ClassInfo> classFilter) {
+    return scanForSubtypes(new Location(location), type, classFilter);
+  }
+
+  /**
+   * Scans the classpath for the names of the classes under the specified package that extend or
+   * implement the named type (directly or transitively) without loading any classes.
+   *
+   * @param location    The package in the classpath to start scanning. Subpackages are also scanned.
+   * @param typeName    The binary name of the class or interface (e.g. <code>org.example.Migration</code>).
+   * @param classFilter The filter applied to the subtypes or null for all the subtypes.
+   * @return The names of the subtypes sorted by name.
+   */
+  public List<String> scanForSubtypeNames(Location location, String typeName, Predicate<ClassInfo> classFilter) {
+    return resourceAndClassScanner.scanForSubtypeNames(location, typeName, classFilter);
+  }
+
+  /**
+   * Return the index of the runtime visible annotations of the classes under the specified package
+   * read from the class files without loading the classes.
+   *
+   * @param location The package in the classpath to start scanning. Subpackages are also scanned.
+   * @return The names of the classes (sorted) keyed by the name of the annotation they are directly annotated with.
+   */
+  public Map<String, List<String>> annotationIndex(Location location) {
+    return resourceAndClassScanner.annotationIndex(location);
+  }
+
+  /**
+   * Return the index of the runtime visible annotations of the classes under the specified package.
+   *
+   * @param location The package in the classpath to start scanning. Subpackages are also scanned.
+   * @return The names of the classes (sorted) keyed by the name of the annotation they are directly annotated with.
+   */
+  public Map<String, List<String>> annotationIndex(String location) {
+    return annotationIndex(new Location(location));
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package returning references to the
+   * classes without loading them.
+   * <p>
+   * Each {@link ClassRef} loads its class only when {@link ClassRef#load()} is called, such that
+   * callers can filter by class name and load only the classes they need.
+   * </p>
+   *
+   * @param location The package in the classpath to start scanning. Subpackages are also scanned.
+   * @return The references to the classes found sorted by name.
+   */
+  public List<ClassRef> scanForClassRefs(Location location) {
+    return resourceAndClassScanner.scanForClassRefs(location);
+  }
+
+  /**
+   * Scans the classpath for classes under the specified package returning references to the
+   * classes without loading them.
+   *
+   * @param location The package in the classpath to start scanning. Subpackages are also scanned.
+   * @return The references to the classes found sorted by name.
+   */
+  public List<ClassRef> scanForClassRefs(String location) {
+    return scanForClassRefs(new Location(location));
+  }
+
+  /**
+   * Read the content of many resources in one pass.
+   * <p>
+   * The resources are grouped by the classpath root (jar or directory) they were found in and
+   * each jar is read once for all the resources in it (using the jars kept open to read the
+   * scanned resources). The content of each resource is
+   * passed to the consumer in the order of the roots (and in the given order within a root).
+   * </p>
+   *
+   * @param resources The resources to read (typically returned by a scan).
+   * @param consumer  The consumer of each resource and its content.
+   * @throws java.io.UncheckedIOException when a resource can not be read.
+   */
+  public void readAll(List<? extends Resource> resources, BiConsumer<Resource, byte[]> consumer) {
+    resourceAndClassScanner.readAll(resources, consumer);
+  }
+
+  /**
+   * Release the cached scan state (location URLs, resource names and jar indexes).
+   * <p>
+   * The scanner can still be used and later scans scan again. When using a snapshot any
+   * pending changes are written and the snapshot is no longer used.
+   * </p>
+   * <p>
+   * The jars kept open to read the scanned resources are closed (closing any streams of
+   * those resources that are still open) and are opened again when read later.
+   * </p>
+   */
+  public void trim() {
+    resourceAndClassScanner.trim();
+  }
+
+  /**
+   * Write the scan results added since the snapshot file was read or last written.
+   * <p>
+   * Scans do not write the snapshot file themselves. It is written by this method and when
+   * the scanner is trimmed or closed. Does nothing when not using a snapshot.
+   * </p>
+   */
+  public void writeSnapshot() {
+    resourceAndClassScanner.writeSnapshot();
+  }
+
+  /**
+   * Release the cached scan state and the reference to the ClassLoader.
+   * <p>
+   * Scanning the classpath after the scanner is closed throws IllegalStateException.
+   * </p>
+   */
+  @Override
+  public void close() {
+    resourceAndClassScanner.close();
+  }
+
+  /**
+   * Return the hit, miss and eviction statistics of the caches of this scanner combined.
+   */
+  public CacheStats cacheStats() {
+    return resourceAndClassScanner.cacheStats();
+  }
+
+  /**
+   * Builder for a Scanner.
+   */
+  public static final class Builder {
+
+    private final ClassLoader classLoader;
+
+    private final ScanOptions options = new ScanOptions();
+
+    private Builder(ClassLoader classLoader) {
+      this.classLoader = classLoader;
+    }
+
+    /**
+     * Set to true to scan the physical URLs (jars and directories) of a location in parallel
+     * using the common fork join pool.
+     * <p>
+     * The results are merged into the same sorted order as a sequential scan.
+     * </p>
+     */
+    public Builder parallel(boolean parallel) {
+      options.parallelExecutor(parallel ? ForkJoinPool.commonPool() : null);
+      return this;
+    }
+
+    /**
+     * Scan the physical URLs (jars and directories) of a location in parallel using the given executor.
+     * <p>
+     * For example, use a virtual thread per task executor when running on a JDK that supports it.
+     * The results are merged into the same sorted order as a sequential scan.
+     * </p>
+     */
+    public Builder parallel(Executor executor) {
+      options.parallelExecutor(executor);
+      return this;
+    }
+
+    /**
+     * Use a snapshot file to persist the scan results for fast subsequent startup.
+     * <p>
+     * The first run writes the location URLs and resource names found by scanning the classpath to
+     * the snapshot file. Later runs load that file instead of scanning. The snapshot is keyed by a
+     * fingerprint of the classpath roots (path, size and last modified) and when that does not match
+     * the classpath is scanned and the snapshot file is rewritten.
+     * </p>
+     * <p>
+     * The snapshot file is written by {@link Scanner#writeSnapshot()}, {@link Scanner#trim()} or
+     * {@link Scanner#close()} rather than by each scan.
+     * </p>
+     * <p>
+     * This is intended for classpaths that do not change between restarts such as deployed jars.
+     * </p>
+     */
+    public Builder snapshot(Path snapshotFile) {
+      options.snapshotFile(snapshotFile);
+      return this;
+    }
+
+    /**
+     * Set to true to revalidate the cached scan results of each root (jar or directory) when accessed.
+     * <p>
+     * Each cached root records a fingerprint (size and last modified time for a jar and a stamp of
+     * the directory tree for a directory). On each scan the fingerprint is checked and only the roots
+     * that have changed are rescanned. This is intended for long-lived development servers with
+     * hot reload such that new resources are found without creating a new Scanner.
+     * </p>
+     * <p>
+     * When revalidating, the resource names of a snapshot are not used as they can not be revalidated.
+     * </p>
+     * <p>
+     * Each root is checked at most once per {@link #revalidateInterval(Duration)} (default 1 second).
+     * </p>
+     */
+    public Builder revalidate(boolean revalidate) {
+      options.revalidate(revalidate);
+      return this;
+    }
+
+    /**
+     * Set the minimum time between checks of a cached root for changes when revalidating.
+     * <p>
+     * Checking a directory root walks its tree so this limits the cost when scanning often.
+     * Changes are found by the first scan after the interval has passed. Use {@link Duration#ZERO}
+     * to check on every scan.
+     * </p>
+     */
+    public Builder revalidateInterval(Duration revalidateInterval) {
+      options.revalidateInterval(revalidateInterval);
+      return this;
+    }
+
+    /**
+     * Limit the number of roots (jars and directories) with cached scan results.
+     * <p>
+     * When the limit is reached the least recently used root is evicted and scanned again if it
+     * is used later. The default of 0 caches all the roots scanned.
+     * </p>
+     * <p>
+     * The limit applies to the resource names and jar and module indexes cached per root. The
+     * results cached per location are small relative to those and are released by {@link Scanner#trim()}.
+     * </p>
+     */
+    public Builder maxCachedRoots(int maxCachedRoots) {
+      options.maxCachedRoots(maxCachedRoots);
+      return this;
+    }
+
+    /**
+     * Set to true to discover the roots of the classpath once and answer every location from an index of them.
+     * <p>
+     * By default each location is looked up with <code>ClassLoader.getResources()</code> which probes
+     * every classpath root and does not find locations in jars that have no directory entries. When
+     * enumerating roots, the jars, directories and application modules of the classpath are found
+     * once (from <code>java.class.path</code>, the URLs of URLClassLoaders and the boot module layer)
+     * and each root is scanned in full once. Each location is then answered from those scan results
+     * without asking the ClassLoader.
+     * </p>
+     * <p>
+     * This suits applications that scan many locations. Resources that the ClassLoader provides from
+     * elsewhere (e.g. a custom ClassLoader that is not a URLClassLoader) are not found.
+     * </p>
+     */
+    public Builder enumerateRoots(boolean enumerateRoots) {
+      options.enumerateRoots(enumerateRoots);
+      return this;
+    }
+
+    /**
+     * Register a listener that receives events with timings and counts as scanning occurs.
+     */
+    public Builder listener(ScanListener listener) {
+      options.listener(listener);
+      return this;
+    }
+
+    /**
+     * Build and return the Scanner.
+     */
+    public Scanner build() {
+      return new Scanner(classLoader, options.copy());
+    }
+  }
 }
@@ -0,0 +1,328 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ClassInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the header of a class file (constant pool, access flags, this class,
+ * super class and interfaces) and the class annotations without loading the class.
+ * <p>
+ * Fields and methods are skipped using their attribute lengths and only the
+ * <code>RuntimeVisibleAnnotations</code> attribute of the class itself is parsed.
+ * </p>
+ */
+public final class ClassFileReader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private final byte[] bytes;
+
+  /**
+   * Offsets into bytes for each constant pool entry (pointing at the tag).
+   */
+  private final int[] cpOffsets;
+
+  /**
+   * Offset of the access flags following the constant pool.
+   */
+  private final int headerOffset;
+
+  private ClassFileReader(byte[] bytes) {
+    this.bytes = bytes;
+    if (readInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a class file - invalid magic number");
+    }
+    int cpCount = readUnsignedShort(8);
+    this.cpOffsets = new int[cpCount];
+    int offset = 10;
+    for (int i = 1; i < cpCount; i++) {
+      cpOffsets[i] = offset;
+      int tag = bytes[offset] & 0xFF;
+      switch (tag) {
+        case 1: // Utf8
+          offset += 3 + readUnsignedShort(offset + 1);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          offset += 5;
+          break;
+        case 5: // Long
+        case 6: // Double
+          offset += 9;
+          i++;
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          offset += 3;
+          break;
+        case 15: // MethodHandle
+          offset += 4;
+          break;
+        default:
+          throw new IllegalArgumentException("Not a class file - unknown constant pool tag " + tag);
+      }
+    }
+    this.headerOffset = offset;
+  }
+
+  /**
+   * Read the class file header from the given input stream (which is closed).
+   */
+  public static ClassInfo read(InputStream inputStream) {
+    try (InputStream in = inputStream) {
+      return read(in.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Read the class file header from the given class file bytes.
+   */
+  public static ClassInfo read(byte[] classFileBytes) {
+    try {
+      return new ClassFileReader(classFileBytes).readHeader();
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Not a class file - truncated content", e);
+    }
+  }
+
+  private ClassInfo readHeader() {
+    int offset = headerOffset;
+    int accessFlags = readUnsignedShort(offset);
+    String name = className(readUnsignedShort(offset + 2));
+    String superName = className(readUnsignedShort(offset + 4));
+    int interfaceCount = readUnsignedShort(offset + 6);
+    List<String> interfaces;
+    if (interfaceCount == 0) {
+      interfaces = Collections.emptyList();
+    } else {
+      interfaces = new ArrayList<>(interfaceCount);
+      for (int i = 0; i < interfaceCount; i++) {
+        interfaces.add(className(readUnsignedShort(offset + 8 + i * 2)));
+      }
+    }
+    offset += 8 + interfaceCount * 2;
+    // fields then methods
+    offset = skipMembers(offset);
+    offset = skipMembers(offset);
+    return new Header(name, superName, interfaces, accessFlags, readAnnotations(offset));
+  }
+
+  /**
+   * Skip the fields or methods starting at the offset returning the offset following them.
+   */
+  private int skipMembers(int offset) {
+    int count = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < count; i++) {
+      // access flags, name and descriptor
+      offset = skipAttributes(offset + 6);
+    }
+    return offset;
+  }
+
+  private int skipAttributes(int offset) {
+    int count = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < count; i++) {
+      offset += 6 + readInt(offset + 2);
+    }
+    return offset;
+  }
+
+  /**
+   * Return the binary names of the runtime visible annotations from the class attributes at the offset.
+   */
+  private List<String> readAnnotations(int offset) {
+    int count = readUnsignedShort(offset);
+    offset += 2;
+    for (int i = 0; i < count; i++) {
+      int length = readInt(offset + 2);
+      if ("RuntimeVisibleAnnotations".equals(utf8(readUnsignedShort(offset)))) {
+        int position = offset + 6;
+        int annotationCount = readUnsignedShort(position);
+        position += 2;
+        List<String> annotations = new ArrayList<>(annotationCount);
+        for (int j = 0; j < annotationCount; j++) {
+          annotations.add(descriptorName(readUnsignedShort(position)));
+          position = skipAnnotation(position);
+        }
+        return annotations;
+      }
+      offset += 6 + length;
+    }
+    return Collections.emptyList();
+  }
+
+  /**
+   * Skip the annotation (type and element value pairs) at the offset.
+   */
+  private int skipAnnotation(int offset) {
+    int pairs = readUnsignedShort(offset + 2);
+    offset += 4;
+    for (int i = 0; i < pairs; i++) {
+      offset = skipElementValue(offset + 2);
+    }
+    return offset;
+  }
+
+  private int skipElementValue(int offset) {
+    char tag = (char) bytes[offset];
+    offset++;
+    switch (tag) {
+      case 'e': // enum type and constant name
+        return offset + 4;
+      case '@':
+        return skipAnnotation(offset);
+      case '[':
+        int count = readUnsignedShort(offset);
+        offset += 2;
+        for (int i = 0; i < count; i++) {
+          offset = skipElementValue(offset);
+        }
+        return offset;
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        return offset + 2;
+      default:
+        throw new IllegalArgumentException("Not a class file - unknown element value tag " + tag);
+    }
+  }
+
+  /**
+   * Return the binary class name for a field descriptor (e.g. <code>Lorg/example/Foo;</code>).
+   */
+  private String descriptorName(int utf8Index) {
+    String descriptor = utf8(utf8Index);
+    return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+  }
+
+  /**
+   * Return the binary class name for the given CONSTANT_Class index (or null for index 0).
+   */
+  private String className(int classIndex) {
+    if (classIndex == 0) {
+      return null;
+    }
+    return utf8(readUnsignedShort(cpOffsets[classIndex] + 1)).replace('/', '.');
+  }
+
+  private String utf8(int utf8Index) {
+    int offset = cpOffsets[utf8Index] + 3;
+    int length = readUnsignedShort(offset - 2);
+    int end = offset + length;
+    for (int i = offset; i < end; i++) {
+      if (bytes[i] < 0) {
+        return modifiedUtf8(offset, end);
+      }
+    }
+    // the common case of ASCII names
+    return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Decode modified UTF-8 (as <code>DataInputStream.readUTF</code>) where NUL is encoded in two
+   * bytes and supplementary characters as two three byte encoded surrogates.
+   */
+  private String modifiedUtf8(int offset, int end) {
+    char[] chars = new char[end - offset];
+    int count = 0;
+    int i = offset;
+    while (i < end) {
+      int b = bytes[i] & 0xFF;
+      if (b < 0x80) {
+        chars[count++] = (char) b;
+        i++;
+      } else if ((b & 0xE0) == 0xC0 && i + 1 < end && (bytes[i + 1] & 0xC0) == 0x80) {
+        chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[i + 1] & 0x3F));
+        i += 2;
+      } else if ((b & 0xF0) == 0xE0 && i + 2 < end && (bytes[i + 1] & 0xC0) == 0x80 && (bytes[i + 2] & 0xC0) == 0x80) {
+        chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[i + 1] & 0x3F) << 6) | (bytes[i + 2] & 0x3F));
+        i += 3;
+      } else {
+        throw new IllegalArgumentException("Not a class file - malformed modified UTF-8 at " + i);
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+  private int readUnsignedShort(int offset) {
+    return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+  }
+
+  private int readInt(int offset) {
+    return (readUnsignedShort(offset) << 16) | readUnsignedShort(offset + 2);
+  }
+
+  private static final class Header implements ClassInfo {
+
+    private final String name;
+    private final String superName;
+    private final List<String> interfaces;
+    private final int accessFlags;
+    private final List<String> annotations;
+
+    Header(String name, String superName, List<String> interfaces, int accessFlags, List<String> annotations) {
+      this.name = name;
+      this.superName = superName;
+      this.interfaces = interfaces;
+      this.accessFlags = accessFlags;
+      this.annotations = annotations;
+    }
+
+    @Override
+    public String name() {
+      return name;
+    }
+
+    @Override
+    public String superName() {
+      return superName;
+    }
+
+    @Override
+    public List<String> interfaces() {
+      return interfaces;
+    }
+
+    @Override
+    public int accessFlags() {
+      return accessFlags;
+    }
+
+    @Override
+    public List<String> annotations() {
+      return annotations;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+}
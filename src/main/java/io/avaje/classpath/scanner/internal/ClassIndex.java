@@ -0,0 +1,136 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ClassInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Index of the classes of a location built from their class files without loading them.
+ * <p>
+ * The index maps each runtime visible annotation to the classes directly annotated with it
+ * such that only the annotated classes need to be loaded. The super class and interface
+ * edges of each class are used to resolve the transitive subtypes of a type by name.
+ * </p>
+ */
+public final class ClassIndex {
+
+  /**
+   * The class information by class name.
+   */
+  private final Map<String, ClassInfo> classes;
+
+  /**
+   * The names of the annotated classes (sorted) by annotation name.
+   */
+  private final Map<String, List<String>> annotated;
+
+  private ClassIndex(Map<String, ClassInfo> classes, Map<String, List<String>> annotated) {
+    this.classes = classes;
+    this.annotated = annotated;
+  }
+
+  /**
+   * Build the index of the given classes.
+   */
+  public static ClassIndex of(Collection<ClassInfo> classInfos) {
+    Map<String, ClassInfo> classes = new TreeMap<>();
+    for (ClassInfo classInfo : classInfos) {
+      classes.putIfAbsent(classInfo.name(), classInfo);
+    }
+    Map<String, List<String>> annotated = new TreeMap<>();
+    for (ClassInfo classInfo : classes.values()) {
+      for (String annotation : classInfo.annotations()) {
+        annotated.computeIfAbsent(annotation, name -> new ArrayList<>()).add(classInfo.name());
+      }
+    }
+    annotated.replaceAll((annotation, classNames) -> Collections.unmodifiableList(classNames));
+    return new ClassIndex(Collections.unmodifiableMap(classes), Collections.unmodifiableMap(annotated));
+  }
+
+  /**
+   * Return the number of classes in the index.
+   */
+  public int size() {
+    return classes.size();
+  }
+
+  /**
+   * Return the information of the class with the given name or null if it is not in the index.
+   */
+  public ClassInfo classInfo(String className) {
+    return classes.get(className);
+  }
+
+  /**
+   * Return the names of the classes directly annotated with the given annotation (sorted).
+   */
+  public List<String> annotatedWith(String annotationName) {
+    return annotated.getOrDefault(annotationName, Collections.emptyList());
+  }
+
+  /**
+   * Return the classes of the index that are transitive subtypes of the named type (sorted by name).
+   * <p>
+   * Super types that are not in the index (e.g. a base class in another package or jar) are
+   * obtained from the lookup such that a subtype is found when the hierarchy passes through
+   * classes outside the index.
+   * </p>
+   *
+   * @param typeName The binary name of the class or interface.
+   * @param lookup   Returns the class information of a class not in the index (or null if not found).
+   */
+  public List<ClassInfo> subtypesOf(String typeName, Function<String, ClassInfo> lookup) {
+    Map<String, Boolean> resolved = new HashMap<>();
+    List<ClassInfo> subtypes = new ArrayList<>();
+    for (ClassInfo classInfo : classes.values()) {
+      if (!classInfo.name().equals(typeName) && isSubtype(classInfo.name(), typeName, lookup, resolved)) {
+        subtypes.add(classInfo);
+      }
+    }
+    return subtypes;
+  }
+
+  private boolean isSubtype(String className, String typeName, Function<String, ClassInfo> lookup, Map<String, Boolean> resolved) {
+    if (className.equals(typeName)) {
+      return true;
+    }
+    if ("java.lang.Object".equals(className)) {
+      return false;
+    }
+    Boolean known = resolved.get(className);
+    if (known != null) {
+      return known;
+    }
+    // guard against cycles in broken class files
+    resolved.put(className, Boolean.FALSE);
+    ClassInfo classInfo = classes.get(className);
+    if (classInfo == null) {
+      classInfo = lookup.apply(className);
+    }
+    boolean subtype = false;
+    if (classInfo != null) {
+      String superName = classInfo.superName();
+      subtype = superName != null && isSubtype(superName, typeName, lookup, resolved);
+      for (Iterator<String> it = classInfo.interfaces().iterator(); !subtype && it.hasNext(); ) {
+        subtype = isSubtype(it.next(), typeName, lookup, resolved);
+      }
+    }
+    resolved.put(className, subtype);
+    return subtype;
+  }
+
+  /**
+   * Return the annotation index (annotation name to the sorted names of the annotated classes).
+   */
+  public Map<String, List<String>> annotations() {
+    return annotated;
+  }
+}
@@ -17,14 +17,26 @@ package io.avaje.classpath.scanner.internal;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Utility class for copying files and their contents. Inspired by Spring's own.
+ * <p>
+ * Content is read in bulk and decoded once. A leading byte order mark is skipped (by its
+ * encoded bytes or when copying) rather than by copying the decoded content again.
+ * </p>
  */
 public class FileCopyUtils {
+
+  private static final char BOM = '\ufeff';
+
+  private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
   /**
    * Prevent instantiation.
    */
@@ -32,30 +44,49 @@ public class FileCopyUtils {
     // Do nothing
   }
 
+  /**
+   * Read the stream fully and decode it (without a leading byte order mark). Closes the stream.
+   */
   public static String copyToString(InputStream inputStream, Charset charset) {
-    return copyToString(new InputStreamReader(inputStream, charset));
+    try (InputStream in = inputStream) {
+      return toString(in.readAllBytes(), charset);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Decode the content (without a leading byte order mark).
+   */
+  public static String toString(byte[] content, Charset charset) {
+    int offset = bomLength(content, charset);
+    return new String(content, offset, content.length - offset, charset);
   }
 
+  /**
+   * Read the reader fully (without a leading byte order mark). Closes the reader.
+   */
   public static String copyToString(Reader in) {
     StringWriter out = new StringWriter();
     copy(in, out);
-    String str = out.toString();
-    //Strip UTF-8 BOM if necessary
-    if (str.startsWith("\ufeff")) {
-      return str.substring(1);
-    }
-    return str;
+    return out.toString();
   }
 
   /**
-   * Copy the contents of the given Reader to the given Writer. Closes both when done.
+   * Copy the contents of the given Reader (without a leading byte order mark) to the given Writer.
+   * Closes both when done.
    */
   private static void copy(Reader in, Writer out) {
     try {
       char[] buffer = new char[4096];
-      int bytesRead;
-      while ((bytesRead = in.read(buffer)) != -1) {
+      int bytesRead = in.read(buffer);
+      if (bytesRead > 0 && buffer[0] == BOM) {
+        out.write(buffer, 1, bytesRead - 1);
+        bytesRead = in.read(buffer);
+      }
+      while (bytesRead != -1) {
         out.write(buffer, 0, bytesRead);
+        bytesRead = in.read(buffer);
       }
       out.flush();
     } catch (IOException e) {
@@ -74,15 +105,15 @@ public class FileCopyUtils {
     }
   }
 
-
+  /**
+   * Read all the lines of the stream (without a leading byte order mark). Closes the stream.
+   */
   public static List<String> readLines(InputStream inputStream, Charset charset) {
     if (inputStream == null) {
       return Collections.emptyList();
     }
-    try {
-      BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+    try (BufferedReader reader = reader(inputStream, charset)) {
       List<String> result = new ArrayList<>();
-
       String line;
       while ((line = reader.readLine()) != null) {
         result.add(line);
@@ -92,4 +123,67 @@ public class FileCopyUtils {
       throw new UncheckedIOException(e);
     }
   }
+
+  /**
+   * Return a lazily read stream of the lines (without a leading byte order mark).
+   * <p>
+   * The input stream is closed when the returned stream is closed, so use it in a
+   * try-with-resources statement.
+   * </p>
+   */
+  public static Stream<String> lines(InputStream inputStream, Charset charset) {
+    if (inputStream == null) {
+      return Stream.empty();
+    }
+    BufferedReader reader;
+    try {
+      reader = reader(inputStream, charset);
+    } catch (IOException e) {
+      close(inputStream);
+      throw new UncheckedIOException(e);
+    }
+    return reader.lines().onClose(() -> close(reader));
+  }
+
+  /**
+   * Return a reader positioned after any leading byte order mark.
+   */
+  private static BufferedReader reader(InputStream inputStream, Charset charset) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, charset));
+    reader.mark(1);
+    if (reader.read() != BOM) {
+      reader.reset();
+    }
+    return reader;
+  }
+
+  /**
+   * Return the length of the leading byte order mark encoded in the charset (0 when there is none).
+   * <p>
+   * Charsets that detect the byte order (<code>UTF-16</code> and <code>UTF-32</code>) consume
+   * the marks they detect when decoding themselves.
+   * </p>
+   */
+  private static int bomLength(byte[] content, Charset charset) {
+    if (StandardCharsets.UTF_8.equals(charset)) {
+      return hasBom(content, UTF_8_BOM) ? UTF_8_BOM.length : 0;
+    }
+    if (!charset.canEncode() || !charset.newEncoder().canEncode(BOM)) {
+      return 0;
+    }
+    byte[] bom = String.valueOf(BOM).getBytes(charset);
+    return hasBom(content, bom) ? bom.length : 0;
+  }
+
+  private static boolean hasBom(byte[] content, byte[] bom) {
+    return content.length >= bom.length && Arrays.equals(content, 0, bom.length, bom, 0, bom.length);
+  }
+
+  private static void close(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
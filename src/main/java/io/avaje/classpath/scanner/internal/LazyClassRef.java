@@ -0,0 +1,73 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ClassRef;
+import io.avaje.classpath.scanner.core.ScanListener;
+
+import java.net.URL;
+
+/**
+ * ClassRef that loads the class on first use and then caches it.
+ */
+public final class LazyClassRef implements ClassRef {
+
+  private final String name;
+  private final String resourceName;
+  private final URL root;
+  private final ClassLoader classLoader;
+  private final ScanListener listener;
+  private volatile Class<?> type;
+
+  /**
+   * Create with the binary class name, class file resource name and the root it was found in.
+   */
+  public LazyClassRef(String name, String resourceName, URL root, ClassLoader classLoader, ScanListener listener) {
+    this.name = name;
+    this.resourceName = resourceName;
+    this.root = root;
+    this.classLoader = classLoader;
+    this.listener = listener;
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public String resourceName() {
+    return resourceName;
+  }
+
+  @Override
+  public URL root() {
+    return root;
+  }
+
+  @Override
+  public boolean isLoaded() {
+    return type != null;
+  }
+
+  @Override
+  public Class<?> load() {
+    Class<?> loaded = type;
+    if (loaded == null) {
+      // racing threads get the same Class from the ClassLoader
+      try {
+        long start = System.nanoTime();
+        loaded = classLoader.loadClass(name);
+        listener.classLoaded(name, System.nanoTime() - start);
+        type = loaded;
+      } catch (ClassNotFoundException | NoClassDefFoundError e) {
+        listener.classLoadFailed(name, e);
+        throw new IllegalStateException("Unable to load class " + name, e);
+      }
+    }
+    return loaded;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
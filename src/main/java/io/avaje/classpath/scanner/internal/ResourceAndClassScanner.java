@@ -15,11 +15,22 @@
  */
 package io.avaje.classpath.scanner.internal;
 
+import io.avaje.classpath.scanner.core.CacheStats;
+import io.avaje.classpath.scanner.core.ClassInfo;
+import io.avaje.classpath.scanner.core.ClassRef;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
 import io.avaje.classpath.scanner.Resource;
 
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Scanner for both resources and classes.
@@ -35,6 +46,52 @@ public interface ResourceAndClassScanner {
    */
   List<Resource> scanForResources(Location location, Predicate<String> predicate);
 
+  /**
+   * Scans for resources under the specified location matching the structured filter.
+   * <p>
+   * Implementations push the filter down into the scanning of jars and directories.
+   * </p>
+   *
+   * @param location The location in the classpath to start searching. Subdirectories are also searched.
+   * @param filter   The filter used to match resources relative to the location.
+   * @return The resources that were found.
+   */
+  default List<Resource> scanForResources(Location location, ResourceFilter filter) {
+    String path = location.path();
+    return scanForResources(location, resourceName -> filter.matches(path, resourceName));
+  }
+
+  /**
+   * Scans multiple locations for resources each with its own predicate.
+   * <p>
+   * Implementations scan each physical root once sharing the result with all the locations in it.
+   * </p>
+   *
+   * @param locations The locations to scan with the predicate used to match the resource names of each.
+   * @return The resources found for each location (in the same order as the given locations).
+   */
+  default Map<Location, List<Resource>> scanAll(Map<Location, Predicate<String>> locations) {
+    Map<Location, List<Resource>> result = new LinkedHashMap<>();
+    locations.forEach((location, predicate) -> result.put(location, scanForResources(location, predicate)));
+    return result;
+  }
+
+  /**
+   * Streams the resources under the specified location matching the predicate.
+   * <p>
+   * When not sorted the resources are emitted as each physical location is scanned such that
+   * a short-circuiting stream operation stops scanning early.
+   * </p>
+   *
+   * @param location  The location in the classpath to start searching. Subdirectories are also searched.
+   * @param predicate The predicate used to match the resource names.
+   * @param sorted    True to return the resources sorted by name (requiring all names to be collected).
+   * @return The stream of resources.
+   */
+  default Stream<Resource> streamResources(Location location, Predicate<String> predicate, boolean sorted) {
+    return scanForResources(location, predicate).stream();
+  }
+
   /**
    * Scans the classpath for concrete classes under the specified package implementing this interface.
    * Non-instantiable abstract classes are filtered out.
@@ -45,4 +102,149 @@ public interface ResourceAndClassScanner {
    * @return The non-abstract classes that were found.
    */
   List<Class<?>> scanForClasses(Location location, Predicate<Class<?>> predicate);
+
+  /**
+   * Scans the classpath for classes under the specified package first filtering on the class file
+   * header information and then only loading the classes that pass that filter.
+   *
+   * @param location    The location (package) in the classpath to start scanning.
+   *                    Subpackages are also scanned.
+   * @param classFilter The filter applied to the class file header prior to loading the class.
+   * @param predicate   The predicate used to match against the loaded classes.
+   * @return The classes that were found.
+   */
+  List<Class<?>> scanForClasses(Location location, Predicate<ClassInfo> classFilter, Predicate<Class<?>> predicate);
+
+  /**
+   * Scans the classpath for classes under the specified package returning references
+   * to the classes without loading them.
+   *
+   * @param location The location (package) in the classpath to start scanning.
+   *                 Subpackages are also scanned.
+   * @return The references to the classes found sorted by name.
+   */
+  List<ClassRef> scanForClassRefs(Location location);
+
+  /**
+   * Scans for classes under the specified package that are directly annotated with the annotation.
+   * <p>
+   * Implementations read the annotations from the class files such that only the annotated
+   * classes are loaded.
+   * </p>
+   *
+   * @param location   The location (package) in the classpath to start scanning.
+   *                   Subpackages are also scanned.
+   * @param annotation The annotation (with runtime retention) the classes are annotated with.
+   * @return The annotated classes sorted by name.
+   */
+  default List<Class<?>> scanForAnnotatedClasses(Location location, Class<? extends Annotation> annotation) {
+    return scanForClasses(location, clazz -> clazz.getDeclaredAnnotation(annotation) != null);
+  }
+
+  /**
+   * Scans for the names of the classes under the specified package that are transitive subtypes
+   * of the named type (classes extending it or implementing it).
+   * <p>
+   * Implementations resolve the subtypes from the super class and interface names in the class
+   * files without loading the classes.
+   * </p>
+   *
+   * @param location    The location (package) in the classpath to start scanning.
+   *                    Subpackages are also scanned.
+   * @param typeName    The binary name of the class or interface.
+   * @param classFilter The filter applied to the subtypes (e.g. <code>ClassInfo::isConcrete</code>) or null for all.
+   * @return The names of the matching subtypes sorted by name.
+   */
+  default List<String> scanForSubtypeNames(Location location, String typeName, Predicate<ClassInfo> classFilter) {
+    List<String> names = new ArrayList<>();
+    for (Class<?> clazz : scanForClasses(location, classFilter, clazz -> isSubtype(clazz, typeName))) {
+      names.add(clazz.getName());
+    }
+    return names;
+  }
+
+  /**
+   * Scans for the classes under the specified package that are transitive subtypes of the type
+   * loading only the subtypes that match the class filter.
+   *
+   * @param location    The location (package) in the classpath to start scanning.
+   *                    Subpackages are also scanned.
+   * @param type        The class or interface.
+   * @param classFilter The filter applied to the subtypes (e.g. <code>ClassInfo::isConcrete</code>) or null for all.
+   * @return The matching subtypes sorted by name.
+   */
+  default <T> List<Class<? extends T>> scanForSubtypes(Location location, Class<T> type, Predicate<ClassInfo> classFilter) {
+    List<Class<? extends T>> subtypes = new ArrayList<>();
+    for (Class<?> clazz : scanForClasses(location, classFilter, clazz -> clazz != type && type.isAssignableFrom(clazz))) {
+      subtypes.add(clazz.asSubclass(type));
+    }
+    return subtypes;
+  }
+
+  private static boolean isSubtype(Class<?> clazz, String typeName) {
+    if (clazz == null) {
+      return false;
+    }
+    for (Class<?> anInterface : clazz.getInterfaces()) {
+      if (anInterface.getName().equals(typeName) || isSubtype(anInterface, typeName)) {
+        return true;
+      }
+    }
+    Class<?> superclass = clazz.getSuperclass();
+    return superclass != null && (superclass.getName().equals(typeName) || isSubtype(superclass, typeName));
+  }
+
+  /**
+   * Return the index of the runtime visible annotations of the classes under the specified package.
+   *
+   * @param location The location (package) in the classpath to start scanning.
+   *                 Subpackages are also scanned.
+   * @return The names of the classes (sorted) keyed by the name of the annotation they are directly annotated with.
+   */
+  default Map<String, List<String>> annotationIndex(Location location) {
+    Map<String, List<String>> index = new TreeMap<>();
+    for (Class<?> clazz : scanForClasses(location, clazz -> true)) {
+      for (Annotation annotation : clazz.getDeclaredAnnotations()) {
+        index.computeIfAbsent(annotation.annotationType().getName(), name -> new ArrayList<>()).add(clazz.getName());
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Read the content of the resources reading each jar once for all the resources in it.
+   */
+  default void readAll(List<? extends Resource> resources, BiConsumer<Resource, byte[]> consumer) {
+    try (ResourceReader reader = new ResourceReader()) {
+      reader.readAll(resources, consumer);
+    }
+  }
+
+  /**
+   * Release the cached scan state. Later scans scan again.
+   */
+  default void trim() {
+    // no cached state by default
+  }
+
+  /**
+   * Write any changes to the snapshot file (when using a snapshot).
+   */
+  default void writeSnapshot() {
+    // no snapshot by default
+  }
+
+  /**
+   * Release the cached scan state and the reference to the ClassLoader. Later scans fail.
+   */
+  default void close() {
+    trim();
+  }
+
+  /**
+   * Return the combined statistics of the caches.
+   */
+  default CacheStats cacheStats() {
+    return CacheStats.EMPTY;
+  }
 }
@@ -0,0 +1,118 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ResourceFilter;
+
+/**
+ * Matches a ResourceFilter against the directories and resource names found when scanning.
+ * <p>
+ * Paths are matched from an offset (the part relative to the location) such that jar entries
+ * and file paths can be matched without creating a substring for each.
+ * </p>
+ */
+public final class ResourceFilterMatcher {
+
+  private ResourceFilterMatcher() {
+  }
+
+  /**
+   * Return true if files in the directory could match the filter. When false the directory and
+   * everything below it can be skipped.
+   *
+   * @param relativeDirectory The directory relative to the location without leading or trailing slash
+   *                          (empty string for the location itself).
+   */
+  public static boolean includeDirectory(ResourceFilter filter, String relativeDirectory) {
+    if (relativeDirectory.isEmpty()) {
+      return true;
+    }
+    int maxDepth = filter.maxDepth();
+    if (maxDepth >= 0 && slashCount(relativeDirectory, 0) + 1 > maxDepth) {
+      return false;
+    }
+    String directory = filter.directory();
+    if (directory == null) {
+      return true;
+    }
+    return isSelfOrBelow(relativeDirectory, directory) || isSelfOrBelow(directory, relativeDirectory);
+  }
+
+  /**
+   * Return true if the path from the start offset (the part relative to the location) matches the filter.
+   */
+  public static boolean matchesRelativeFrom(ResourceFilter filter, String path, int start) {
+    int lastSlash = path.lastIndexOf('/');
+    if (lastSlash == path.length() - 1) {
+      // a directory entry
+      return false;
+    }
+    if (lastSlash < start) {
+      lastSlash = -1;
+    }
+    int maxDepth = filter.maxDepth();
+    if (maxDepth >= 0 && slashCount(path, start) > maxDepth) {
+      return false;
+    }
+    String directory = filter.directory();
+    if (directory != null) {
+      int dirEnd = start + directory.length();
+      if (lastSlash < dirEnd || !path.startsWith(directory, start) || path.charAt(dirEnd) != '/') {
+        return false;
+      }
+    }
+    return matchesFileName(filter, path, lastSlash == -1 ? start : lastSlash + 1);
+  }
+
+  /**
+   * Return true if the file name starting at the given offset of the path matches the suffix and glob.
+   */
+  public static boolean matchesFileName(ResourceFilter filter, String path, int fileNameStart) {
+    String suffix = filter.suffix();
+    if (suffix != null && (path.length() - fileNameStart < suffix.length() || !path.endsWith(suffix))) {
+      return false;
+    }
+    String glob = filter.glob();
+    return glob == null || globMatch(glob, path, fileNameStart);
+  }
+
+  private static boolean isSelfOrBelow(String path, String directory) {
+    return path.equals(directory) || (path.startsWith(directory) && path.charAt(directory.length()) == '/');
+  }
+
+  private static int slashCount(String path, int start) {
+    int count = 0;
+    for (int i = start; i < path.length(); i++) {
+      if (path.charAt(i) == '/') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Match the glob against the text starting at the offset (with backtracking on the last <code>*</code>).
+   */
+  private static boolean globMatch(String glob, String text, int offset) {
+    int g = 0;
+    int t = offset;
+    int starG = -1;
+    int starT = -1;
+    while (t < text.length()) {
+      if (g < glob.length() && (glob.charAt(g) == '?' || glob.charAt(g) == text.charAt(t))) {
+        g++;
+        t++;
+      } else if (g < glob.length() && glob.charAt(g) == '*') {
+        starG = g++;
+        starT = t;
+      } else if (starG != -1) {
+        g = starG + 1;
+        t = ++starT;
+      } else {
+        return false;
+      }
+    }
+    while (g < glob.length() && glob.charAt(g) == '*') {
+      g++;
+    }
+    return g == glob.length();
+  }
+}
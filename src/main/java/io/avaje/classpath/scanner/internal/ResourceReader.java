@@ -0,0 +1,339 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ScannedResource;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Reads resources directly from the classpath root (jar or directory) they were scanned in.
+ * <p>
+ * Local jar files are read with a JarFile and directories with the file system such that
+ * reading does not search the ClassLoader hierarchy. A multi-release jar is read with the
+ * versioned entries of the running Java version (as the ClassLoader would). Other roots (e.g. jars nested in jars
+ * or remote jars) are not supported and the callers fall back to the ClassLoader.
+ * </p>
+ * <p>
+ * Each jar is kept open once read from (as the ClassLoader keeps its jars open) such that
+ * reading many resources from a jar does not read its central directory each time. A jar that
+ * has changed (size or last modified) is opened again. The open jars are closed by
+ * {@link #release()} and after {@link #close()} each read opens and closes the jar.
+ * </p>
+ */
+public final class ResourceReader implements AutoCloseable {
+
+  private static final System.Logger log = ScanLog.log;
+
+  /**
+   * The open jars by jar file.
+   */
+  private final Map<Path, OpenJar> openJars = new ConcurrentHashMap<>();
+
+  private volatile boolean closed;
+
+  /**
+   * Open the named resource in the root or return null if the root is not supported.
+   *
+   * @param root The URL of the classpath root (ending with a slash).
+   * @param name The resource name relative to the root.
+   * @throws IOException when the resource does not exist or can not be read.
+   */
+  public InputStream open(URL root, String name) throws IOException {
+    Path directory = directory(root);
+    if (directory != null) {
+      return Files.newInputStream(directory.resolve(name));
+    }
+    JarRoot jarRoot = JarRoot.parse(root);
+    if (jarRoot == null) {
+      return null;
+    }
+    if (!closed) {
+      ZipFile zipFile = openJar(jarRoot);
+      return zipFile.getInputStream(jarRoot.entry(zipFile, name));
+    }
+    ZipFile zipFile = jarRoot.open();
+    try {
+      InputStream inputStream = zipFile.getInputStream(jarRoot.entry(zipFile, name));
+      // closing the entry stream also closes the zip file
+      return new FilterInputStream(inputStream) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            zipFile.close();
+          }
+        }
+      };
+    } catch (IOException | RuntimeException e) {
+      zipFile.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Read the named resource in the root or return null if the root is not supported.
+   *
+   * @param root The URL of the classpath root (ending with a slash).
+   * @param name The resource name relative to the root.
+   * @throws IOException when the resource does not exist or can not be read.
+   */
+  public byte[] read(URL root, String name) throws IOException {
+    Path directory = directory(root);
+    if (directory != null) {
+      return Files.readAllBytes(directory.resolve(name));
+    }
+    JarRoot jarRoot = JarRoot.parse(root);
+    if (jarRoot == null) {
+      return null;
+    }
+    if (!closed) {
+      ZipFile zipFile = openJar(jarRoot);
+      return readEntry(zipFile, jarRoot.entry(zipFile, name));
+    }
+    try (ZipFile zipFile = jarRoot.open()) {
+      return readEntry(zipFile, jarRoot.entry(zipFile, name));
+    }
+  }
+
+  /**
+   * Close the open jars (streams opened from them are closed as well).
+   */
+  public void release() {
+    for (Path file : openJars.keySet()) {
+      OpenJar openJar = openJars.remove(file);
+      if (openJar != null) {
+        openJar.close();
+      }
+    }
+  }
+
+  /**
+   * Close the open jars and stop keeping jars open.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    release();
+  }
+
+  /**
+   * Return the number of jars kept open.
+   */
+  int openJarCount() {
+    return openJars.size();
+  }
+
+  /**
+   * Return the open jar of the root opening it when not open or when the jar has changed.
+   */
+  private ZipFile openJar(JarRoot jarRoot) throws IOException {
+    File file = jarRoot.file.toFile();
+    long length = file.length();
+    long lastModified = file.lastModified();
+    try {
+      return openJars.compute(jarRoot.file, (path, current) -> {
+        if (current != null) {
+          if (current.length == length && current.lastModified == lastModified) {
+            return current;
+          }
+          current.close();
+        }
+        try {
+          return new OpenJar(jarRoot.open(), length, lastModified);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }).zipFile;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Read all the given resources reading each jar once for all the resources in it.
+   * <p>
+   * The resources are grouped by their root and passed to the consumer in the order of
+   * their roots (and in the given order within a root). The jars are taken from the open jars
+   * (and kept open) unless this reader is closed.
+   * </p>
+   */
+  public void readAll(List<? extends Resource> resources, BiConsumer<Resource, byte[]> consumer) {
+    Map<URL, List<ScannedResource>> byRoot = new LinkedHashMap<>();
+    List<Resource> others = new ArrayList<>();
+    for (Resource resource : resources) {
+      URL root = resource instanceof ScannedResource ? ((ScannedResource) resource).root() : null;
+      if (root == null) {
+        others.add(resource);
+      } else {
+        byRoot.computeIfAbsent(root, url -> new ArrayList<>()).add((ScannedResource) resource);
+      }
+    }
+    byRoot.forEach((root, rootResources) -> readRoot(root, rootResources, consumer));
+    for (Resource resource : others) {
+      consumer.accept(resource, loadAsBytes(resource));
+    }
+  }
+
+  private void readRoot(URL root, List<ScannedResource> resources, BiConsumer<Resource, byte[]> consumer) {
+    JarRoot jarRoot = JarRoot.parse(root);
+    if (jarRoot == null) {
+      for (ScannedResource resource : resources) {
+        consumer.accept(resource, resource.loadAsBytes());
+      }
+      return;
+    }
+    try {
+      if (!closed) {
+        readEntries(openJar(jarRoot), jarRoot, resources, consumer);
+        return;
+      }
+      try (ZipFile zipFile = jarRoot.open()) {
+        readEntries(zipFile, jarRoot, resources, consumer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void readEntries(ZipFile zipFile, JarRoot jarRoot, List<ScannedResource> resources, BiConsumer<Resource, byte[]> consumer) throws IOException {
+    for (ScannedResource resource : resources) {
+      ZipEntry entry = zipFile.getEntry(jarRoot.prefix + resource.location());
+      consumer.accept(resource, entry == null ? resource.loadAsBytes() : readEntry(zipFile, entry));
+    }
+  }
+
+  private static byte[] loadAsBytes(Resource resource) {
+    if (resource instanceof ScannedResource) {
+      return ((ScannedResource) resource).loadAsBytes();
+    }
+    try (InputStream inputStream = resource.inputStream()) {
+      if (inputStream == null) {
+        throw new UncheckedIOException(new IOException("Resource " + resource.location() + " not found"));
+      }
+      return inputStream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Read the entry using its size (when known) to read into an array of the exact size.
+   */
+  private static byte[] readEntry(ZipFile zipFile, ZipEntry entry) throws IOException {
+    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+      long size = entry.getSize();
+      if (size >= 0 && size < Integer.MAX_VALUE - 8) {
+        byte[] content = inputStream.readNBytes((int) size);
+        if (content.length == size && inputStream.read() == -1) {
+          return content;
+        }
+        throw new IOException("Size of " + entry.getName() + " does not match " + size);
+      }
+      return inputStream.readAllBytes();
+    }
+  }
+
+  /**
+   * Return the directory of a <code>file:</code> root or null if the root is not a directory.
+   */
+  private static Path directory(URL root) {
+    if (!"file".equals(root.getProtocol())) {
+      return null;
+    }
+    Path directory = Paths.get(UrlUtils.toFilePath(root));
+    return Files.isDirectory(directory) ? directory : null;
+  }
+
+  /**
+   * A jar kept open with the size and last modified time it was opened with.
+   */
+  private static final class OpenJar {
+
+    private final ZipFile zipFile;
+    private final long length;
+    private final long lastModified;
+
+    private OpenJar(ZipFile zipFile, long length, long lastModified) {
+      this.zipFile = zipFile;
+      this.length = length;
+      this.lastModified = lastModified;
+    }
+
+    void close() {
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        log.log(Level.DEBUG, "closing " + zipFile.getName() + " failed", e);
+      }
+    }
+  }
+
+  /**
+   * A local jar file and the entry prefix of the root within it.
+   */
+  private static final class JarRoot {
+
+    private final Path file;
+    private final String prefix;
+
+    private JarRoot(Path file, String prefix) {
+      this.file = file;
+      this.prefix = prefix;
+    }
+
+    /**
+     * Return the jar root of a <code>jar:file:</code> URL or null if the URL is not for a local jar
+     * (including a jar nested in another jar).
+     */
+    static JarRoot parse(URL root) {
+      if (!"jar".equals(root.getProtocol())) {
+        return null;
+      }
+      String file = root.getFile();
+      int separator = file.indexOf("!/");
+      if (separator == -1 || !file.startsWith("file:") || file.indexOf("!/", separator + 2) != -1) {
+        return null;
+      }
+      try {
+        Path jarFile = Paths.get(UrlUtils.toFilePath(new URL(file.substring(0, separator))));
+        return Files.isRegularFile(jarFile) ? new JarRoot(jarFile, file.substring(separator + 2)) : null;
+      } catch (IOException e) {
+        return null;
+      }
+    }
+
+    /**
+     * Open the jar resolving the versioned entries of a multi-release jar for the running Java version.
+     */
+    ZipFile open() throws IOException {
+      return new JarFile(file.toFile(), false, ZipFile.OPEN_READ, Runtime.version());
+    }
+
+    ZipEntry entry(ZipFile zipFile, String name) throws IOException {
+      ZipEntry entry = zipFile.getEntry(prefix + name);
+      if (entry == null) {
+        throw new IOException("Entry " + prefix + name + " not found in " + file);
+      }
+      return entry;
+    }
+  }
+}
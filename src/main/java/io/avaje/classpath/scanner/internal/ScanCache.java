@@ -0,0 +1,263 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.CacheStats;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Thread safe cache that loads each key at most once.
+ * <p>
+ * When multiple threads ask for the same key at the same time the value is loaded
+ * by one thread and the other threads wait for and share that result (single-flight).
+ * A load that fails is not cached such that a later request will try again.
+ * </p>
+ * <p>
+ * The cache can be given a maximum size in which case the least recently used loaded
+ * entries are evicted when a load takes it over that size.
+ * </p>
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public final class ScanCache<K, V> {
+
+  /**
+   * Loads the value for a key.
+   */
+  @FunctionalInterface
+  public interface Loader<K, V> {
+
+    /**
+     * Load the value for the given key.
+     */
+    V load(K key) throws IOException;
+  }
+
+  private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+
+  /**
+   * The maximum number of entries or 0 for unbounded.
+   */
+  private final int maxSize;
+
+  /**
+   * Logical clock recording the order entries are accessed in.
+   */
+  private final AtomicLong clock = new AtomicLong();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Create an unbounded cache.
+   */
+  public ScanCache() {
+    this(0);
+  }
+
+  /**
+   * Create a cache holding at most the given number of entries (0 for unbounded).
+   */
+  public ScanCache(int maxSize) {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("maxSize must not be negative but was " + maxSize);
+    }
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Return the value for the key loading it if necessary.
+   *
+   * @param key    The key of the value.
+   * @param loader The loader used when the value is not already cached or being loaded.
+   * @return The cached or loaded value.
+   * @throws IOException when the load failed.
+   */
+  public V get(K key, Loader<K, V> loader) throws IOException {
+    Entry<V> entry = map.get(key);
+    boolean loaded = false;
+    if (entry == null) {
+      Entry<V> newEntry = new Entry<>(new FutureTask<>(() -> loader.load(key)));
+      entry = map.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+        loaded = true;
+        misses.increment();
+        newEntry.task.run();
+      }
+    }
+    if (!loaded) {
+      hits.increment();
+    }
+    entry.lastAccess = clock.incrementAndGet();
+    try {
+      V value = entry.task.get();
+      if (loaded && maxSize > 0 && map.size() > maxSize) {
+        evict(key);
+      }
+      return value;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " + key);
+    } catch (ExecutionException e) {
+      map.remove(key, entry);
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new UncheckedIOException(new IOException(cause));
+    }
+  }
+
+  /**
+   * Return the value for the key loading it if necessary and reloading it if the cached value is no longer valid.
+   *
+   * @param key    The key of the value.
+   * @param loader The loader used when the value is not already cached or being loaded.
+   * @param valid  The check that the cached value is still valid.
+   * @return The cached or loaded value.
+   * @throws IOException when the load failed.
+   */
+  public V get(K key, Loader<K, V> loader, Predicate<V> valid) throws IOException {
+    V value = get(key, loader);
+    if (valid.test(value)) {
+      return value;
+    }
+    invalidate(key, value);
+    return get(key, loader);
+  }
+
+  /**
+   * Remove the entry for the key if it still holds the given value.
+   * <p>
+   * The value is only removed once when multiple threads find it no longer valid such
+   * that it is also only reloaded once.
+   * </p>
+   */
+  public void invalidate(K key, V value) {
+    Entry<V> entry = map.get(key);
+    if (entry != null && completedValue(entry) == value) {
+      map.remove(key, entry);
+    }
+  }
+
+  /**
+   * Evict the least recently used loaded entries (other than the given key) until within the maximum size.
+   */
+  private void evict(K loadedKey) {
+    while (map.size() > maxSize) {
+      K eldestKey = null;
+      Entry<V> eldest = null;
+      for (Map.Entry<K, Entry<V>> candidate : map.entrySet()) {
+        Entry<V> entry = candidate.getValue();
+        if (entry.task.isDone() && !candidate.getKey().equals(loadedKey)
+          && (eldest == null || entry.lastAccess < eldest.lastAccess)) {
+          eldestKey = candidate.getKey();
+          eldest = entry;
+        }
+      }
+      if (eldest == null) {
+        // only loads in progress remain
+        return;
+      }
+      if (map.remove(eldestKey, eldest)) {
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Remove the entry for the key.
+   */
+  public void remove(K key) {
+    map.remove(key);
+  }
+
+  /**
+   * Remove the entries with keys matching the predicate.
+   */
+  public void removeIf(Predicate<K> predicate) {
+    map.keySet().removeIf(predicate);
+  }
+
+  /**
+   * Return the value for the key if it has already been loaded or null otherwise.
+   * <p>
+   * This does not wait for a load in progress.
+   * </p>
+   */
+  public V getIfPresent(K key) {
+    Entry<V> entry = map.get(key);
+    if (entry == null) {
+      return null;
+    }
+    V value = completedValue(entry);
+    if (value != null) {
+      hits.increment();
+      entry.lastAccess = clock.incrementAndGet();
+    }
+    return value;
+  }
+
+  private V completedValue(Entry<V> entry) {
+    if (!entry.task.isDone()) {
+      return null;
+    }
+    try {
+      return entry.task.get();
+    } catch (InterruptedException | ExecutionException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Return the number of entries in the cache (including loads in progress).
+   */
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Remove all the entries from the cache.
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * Return the hit, miss and eviction statistics of the cache.
+   */
+  public CacheStats stats() {
+    return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), map.size());
+  }
+
+  /**
+   * The task loading the value and when it was last accessed.
+   */
+  private static final class Entry<V> {
+
+    final FutureTask<V> task;
+
+    volatile long lastAccess;
+
+    Entry(FutureTask<V> task) {
+      this.task = task;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ScanListener;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Options controlling how the classpath is scanned.
+ */
+public final class ScanOptions {
+
+  private static final ScanListener NOOP_LISTENER = new ScanListener() { };
+
+  private Executor parallelExecutor;
+
+  private Path snapshotFile;
+
+  private ScanListener listener = NOOP_LISTENER;
+
+  private boolean revalidate;
+
+  private Duration revalidateInterval = Duration.ofSeconds(1);
+
+  private int maxCachedRoots;
+
+  private boolean enumerateRoots;
+
+  /**
+   * Set the executor used to scan the physical URLs of a location in parallel.
+   * A null executor (the default) scans the URLs sequentially.
+   */
+  public ScanOptions parallelExecutor(Executor parallelExecutor) {
+    this.parallelExecutor = parallelExecutor;
+    return this;
+  }
+
+  /**
+   * Return the executor used to scan in parallel or null for sequential scanning.
+   */
+  public Executor parallelExecutor() {
+    return parallelExecutor;
+  }
+
+  /**
+   * Set the file used to persist a snapshot of the scan results.
+   */
+  public ScanOptions snapshotFile(Path snapshotFile) {
+    this.snapshotFile = snapshotFile;
+    return this;
+  }
+
+  /**
+   * Return the snapshot file or null when snapshots are not used.
+   */
+  public Path snapshotFile() {
+    return snapshotFile;
+  }
+
+  /**
+   * Set the listener receiving scan events.
+   */
+  public ScanOptions listener(ScanListener listener) {
+    this.listener = listener == null ? NOOP_LISTENER : listener;
+    return this;
+  }
+
+  /**
+   * Return the listener receiving scan events (never null).
+   */
+  public ScanListener listener() {
+    return listener;
+  }
+
+  /**
+   * Set to true to revalidate cached roots on access rescanning those that have changed.
+   */
+  public ScanOptions revalidate(boolean revalidate) {
+    this.revalidate = revalidate;
+    return this;
+  }
+
+  /**
+   * Return true if cached roots are revalidated on access.
+   */
+  public boolean revalidate() {
+    return revalidate;
+  }
+
+  /**
+   * Set the minimum time between checks of a cached root for changes when revalidating.
+   */
+  public ScanOptions revalidateInterval(Duration revalidateInterval) {
+    if (revalidateInterval.isNegative()) {
+      throw new IllegalArgumentException("revalidateInterval must not be negative but was " + revalidateInterval);
+    }
+    this.revalidateInterval = revalidateInterval;
+    return this;
+  }
+
+  /**
+   * Return the minimum time between checks of a cached root for changes when revalidating.
+   */
+  public Duration revalidateInterval() {
+    return revalidateInterval;
+  }
+
+  /**
+   * Set the maximum number of roots (jars and directories) with cached scan results (0 for unbounded).
+   */
+  public ScanOptions maxCachedRoots(int maxCachedRoots) {
+    if (maxCachedRoots < 0) {
+      throw new IllegalArgumentException("maxCachedRoots must not be negative but was " + maxCachedRoots);
+    }
+    this.maxCachedRoots = maxCachedRoots;
+    return this;
+  }
+
+  /**
+   * Return the maximum number of roots with cached scan results or 0 for unbounded.
+   */
+  public int maxCachedRoots() {
+    return maxCachedRoots;
+  }
+
+  /**
+   * Set to true to discover the classpath roots once and answer each location from an index of those roots.
+   */
+  public ScanOptions enumerateRoots(boolean enumerateRoots) {
+    this.enumerateRoots = enumerateRoots;
+    return this;
+  }
+
+  /**
+   * Return true if locations are answered from an index of the discovered classpath roots.
+   */
+  public boolean enumerateRoots() {
+    return enumerateRoots;
+  }
+
+  /**
+   * Return a copy of these options (such that changes to either do not affect the other).
+   */
+  public ScanOptions copy() {
+    ScanOptions copy = new ScanOptions();
+    copy.parallelExecutor = parallelExecutor;
+    copy.snapshotFile = snapshotFile;
+    copy.listener = listener;
+    copy.revalidate = revalidate;
+    copy.revalidateInterval = revalidateInterval;
+    copy.maxCachedRoots = maxCachedRoots;
+    copy.enumerateRoots = enumerateRoots;
+    return copy;
+  }
+}
@@ -0,0 +1,36 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.internal.ClassIndex;
+
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * The class index of a location along with the roots (and their stamps) it was built from.
+ */
+final class CachedClassIndex {
+
+  private final ClassIndex index;
+
+  private final Map<URL, CachedRoot> roots;
+
+  CachedClassIndex(ClassIndex index, Map<URL, CachedRoot> roots) {
+    this.index = index;
+    this.roots = roots;
+  }
+
+  /**
+   * Return the class index.
+   */
+  ClassIndex index() {
+    return index;
+  }
+
+  /**
+   * Return the roots by resolved URL with the stamps they had when the index was built
+   * (empty when not revalidating).
+   */
+  Map<URL, CachedRoot> roots() {
+    return roots;
+  }
+}
@@ -0,0 +1,49 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+/**
+ * The resource names of a scanned root along with the stamp of the root when it was scanned.
+ */
+final class CachedRoot {
+
+  private final CompactNames names;
+
+  private final long stamp;
+
+  /**
+   * The time (nanos) the root was last known to match the stamp.
+   */
+  private volatile long checkedAt = System.nanoTime();
+
+  CachedRoot(CompactNames names, long stamp) {
+    this.names = names;
+    this.stamp = stamp;
+  }
+
+  /**
+   * Return the resource names.
+   */
+  CompactNames names() {
+    return names;
+  }
+
+  /**
+   * Return the stamp of the root at the time it was scanned.
+   */
+  long stamp() {
+    return stamp;
+  }
+
+  /**
+   * Return the time (nanos) the root was last known to match the stamp.
+   */
+  long checkedAt() {
+    return checkedAt;
+  }
+
+  /**
+   * Record that the root matched the stamp at the given time (nanos).
+   */
+  void checked(long time) {
+    checkedAt = time;
+  }
+}
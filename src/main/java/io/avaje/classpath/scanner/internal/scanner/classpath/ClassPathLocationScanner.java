@@ -15,9 +15,13 @@
  */
 package io.avaje.classpath.scanner.internal.scanner.classpath;
 
+import io.avaje.classpath.scanner.core.CacheStats;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+
 import java.io.IOException;
 import java.net.URL;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Scans for classpath resources in this location.
@@ -32,4 +36,40 @@ public interface ClassPathLocationScanner {
    * @throws IOException when the scanning failed.
    */
   Set<String> findResourceNames(String location, URL locationUrl) throws IOException;
+
+  /**
+   * Finds the resource names below this location matching the filter.
+   * <p>
+   * Implementations push the filter down to skip directories and entries that can not match.
+   * </p>
+   *
+   * @param location    The system-independent location on the classpath.
+   * @param locationUrl The system-specific physical location URL.
+   * @param filter      The filter the resource names must match.
+   * @return The system-independent names of the matching resources on the classpath.
+   * @throws IOException when the scanning failed.
+   */
+  default Set<String> findResourceNames(String location, URL locationUrl, ResourceFilter filter) throws IOException {
+    Set<String> resourceNames = new TreeSet<>();
+    for (String resourceName : findResourceNames(location, locationUrl)) {
+      if (filter.matches(location, resourceName)) {
+        resourceNames.add(resourceName);
+      }
+    }
+    return resourceNames;
+  }
+
+  /**
+   * Release any cached scan state.
+   */
+  default void trim() {
+    // no cached state by default
+  }
+
+  /**
+   * Return the statistics of the caches of this scanner.
+   */
+  default CacheStats cacheStats() {
+    return CacheStats.EMPTY;
+  }
 }
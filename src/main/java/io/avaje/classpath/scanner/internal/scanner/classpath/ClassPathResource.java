@@ -15,31 +15,56 @@
  */
 package io.avaje.classpath.scanner.internal.scanner.classpath;
 
-import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ScannedResource;
 import io.avaje.classpath.scanner.internal.FileCopyUtils;
+import io.avaje.classpath.scanner.internal.ResourceReader;
+import io.avaje.classpath.scanner.internal.ScanLog;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A resource on the classpath.
+ * <p>
+ * The resource is read directly from the root (jar or directory) it was scanned in when that
+ * is known and supported, otherwise it is read via the ClassLoader.
+ * </p>
  */
-class ClassPathResource implements Resource {
+class ClassPathResource implements ScannedResource {
+
+  private static final System.Logger log = ScanLog.log;
 
   /**
    * The location of the resource on the classpath.
    */
   private final String location;
 
+  /**
+   * The classpath root the resource was found in (null when not known).
+   */
+  private final URL root;
+
   /**
    * The ClassLoader to use.
    */
   private final ClassLoader classLoader;
 
-  ClassPathResource(String location, ClassLoader classLoader) {
+  /**
+   * The reader of the roots (shared by the resources of a scanner).
+   */
+  private final ResourceReader reader;
+
+  ClassPathResource(String location, URL root, ClassLoader classLoader, ResourceReader reader) {
     this.location = location;
+    this.root = root;
     this.classLoader = classLoader;
+    this.reader = reader;
   }
 
   @Override
@@ -57,11 +82,48 @@ class ClassPathResource implements Resource {
     return location.substring(location.lastIndexOf("/") + 1);
   }
 
+  @Override
+  public URL root() {
+    return root;
+  }
+
   @Override
   public InputStream inputStream() {
+    if (root != null) {
+      try {
+        InputStream inputStream = reader.open(root, location);
+        if (inputStream != null) {
+          return inputStream;
+        }
+      } catch (IOException e) {
+        log.log(Level.DEBUG, "reading " + location + " from " + root + " failed, using ClassLoader", e);
+      }
+    }
     return classLoader.getResourceAsStream(location);
   }
 
+  @Override
+  public byte[] loadAsBytes() {
+    if (root != null) {
+      try {
+        byte[] content = reader.read(root, location);
+        if (content != null) {
+          return content;
+        }
+      } catch (IOException e) {
+        log.log(Level.DEBUG, "reading " + location + " from " + root + " failed, using ClassLoader", e);
+      }
+    }
+    try (InputStream inputStream = classLoader.getResourceAsStream(location)) {
+      if (inputStream == null) {
+        throw new IOException("Resource " + location + " not found");
+      }
+      return inputStream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public List<String> loadAsLines(Charset charset) {
     return FileCopyUtils.readLines(inputStream(), charset);
@@ -69,7 +131,12 @@ class ClassPathResource implements Resource {
 
   @Override
   public String loadAsString(Charset charset) {
-    return FileCopyUtils.copyToString(inputStream(), charset);
+    return FileCopyUtils.toString(loadAsBytes(), charset);
+  }
+
+  @Override
+  public Stream<String> lines(Charset charset) {
+    return FileCopyUtils.lines(inputStream(), charset);
   }
 
 }
@@ -0,0 +1,156 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.lang.module.ResolvedModule;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Discovers the roots (jars, directories and modules) of the classpath of a ClassLoader.
+ * <p>
+ * The roots are found in the order the ClassLoader searches them: the application modules of
+ * the boot layer, then the URLs of each URLClassLoader from the top of the hierarchy down and
+ * then <code>java.class.path</code> when the hierarchy includes the system ClassLoader. The
+ * <code>Class-Path</code> of the manifest of each jar is followed as the ClassLoader would with
+ * its entries searched immediately after the jar declaring them.
+ * </p>
+ * <p>
+ * The manifest of a jar is read when the jar is indexed by the jar location scanner such that
+ * the central directory of each jar is read once for both the discovery and the scan.
+ * </p>
+ * <p>
+ * The modules of the JDK (defined to the boot and platform ClassLoaders) are not roots.
+ * </p>
+ */
+final class ClassPathRoots {
+
+  private static final System.Logger log = ScanLog.log;
+
+  private ClassPathRoots() {
+  }
+
+  /**
+   * Return the URLs of the roots of the classpath of the ClassLoader (each ending with a slash).
+   */
+  static List<URL> discover(ClassLoader classLoader, JarFileClassPathLocationScanner jars) {
+    List<ClassLoader> hierarchy = new ArrayList<>();
+    for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+      hierarchy.add(loader);
+    }
+    Collections.reverse(hierarchy);
+
+    Set<URL> roots = new LinkedHashSet<>();
+    addModuleRoots(hierarchy, roots);
+    List<URL> urls = new ArrayList<>();
+    for (ClassLoader loader : hierarchy) {
+      if (loader instanceof URLClassLoader) {
+        Collections.addAll(urls, ((URLClassLoader) loader).getURLs());
+      }
+      if (loader == ClassLoader.getSystemClassLoader()) {
+        addClassPath(System.getProperty("java.class.path", ""), urls);
+      }
+    }
+    Set<URL> visited = new HashSet<>();
+    for (URL url : urls) {
+      addRoot(url, roots, visited, jars);
+    }
+    return List.copyOf(roots);
+  }
+
+  /**
+   * Add the modules of the boot layer defined to a ClassLoader of the hierarchy (other than the platform ClassLoader).
+   */
+  private static void addModuleRoots(List<ClassLoader> hierarchy, Set<URL> roots) {
+    ClassLoader platform = ClassLoader.getPlatformClassLoader();
+    ModuleLayer layer = ModuleLayer.boot();
+    for (ResolvedModule module : layer.configuration().modules()) {
+      ClassLoader loader = layer.findLoader(module.name());
+      Optional<URI> location = module.reference().location();
+      if (loader != null && loader != platform && hierarchy.contains(loader) && location.isPresent()) {
+        try {
+          URL root = moduleRoot(location.get());
+          if (root != null) {
+            roots.add(root);
+          }
+        } catch (MalformedURLException | IllegalArgumentException e) {
+          log.log(Level.DEBUG, "unable to use module " + module.name() + " at " + location.get(), e);
+        }
+      }
+    }
+  }
+
+  private static URL moduleRoot(URI location) throws MalformedURLException {
+    if ("file".equals(location.getScheme())) {
+      File file = new File(location);
+      return file.isDirectory() ? directoryRoot(file) : file.isFile() ? jarRoot(file) : null;
+    }
+    String url = location.toString();
+    return new URL(url.endsWith("/") ? url : url + "/");
+  }
+
+  private static void addClassPath(String classPath, List<URL> urls) {
+    for (String entry : classPath.split(File.pathSeparator)) {
+      if (!entry.isEmpty()) {
+        try {
+          urls.add(new File(entry).toURI().toURL());
+        } catch (MalformedURLException e) {
+          log.log(Level.DEBUG, "ignore classpath entry " + entry, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Add the root of a classpath URL followed by the roots of the <code>Class-Path</code> of a jar.
+   */
+  private static void addRoot(URL url, Set<URL> roots, Set<URL> visited, JarFileClassPathLocationScanner jars) {
+    if (!visited.add(url)) {
+      return;
+    }
+    if (!"file".equals(url.getProtocol())) {
+      log.log(Level.DEBUG, "ignore classpath root {0} (unsupported protocol)", url);
+      return;
+    }
+    File file = new File(UrlUtils.toFilePath(url));
+    try {
+      if (file.isDirectory()) {
+        roots.add(directoryRoot(file));
+      } else if (file.isFile()) {
+        URL jarRoot = jarRoot(file);
+        roots.add(jarRoot);
+        String classPath = jars.manifestClassPath(jarRoot);
+        if (classPath != null) {
+          for (String entry : classPath.trim().split("\\s+")) {
+            if (!entry.isEmpty()) {
+              addRoot(new URL(url, entry), roots, visited, jars);
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      log.log(Level.DEBUG, "ignore classpath root " + url, e);
+    }
+  }
+
+  private static URL directoryRoot(File directory) throws MalformedURLException {
+    return directory.getAbsoluteFile().toURI().toURL();
+  }
+
+  private static URL jarRoot(File jar) throws MalformedURLException {
+    return new URL("jar:" + jar.getAbsoluteFile().toURI() + "!/");
+  }
+}
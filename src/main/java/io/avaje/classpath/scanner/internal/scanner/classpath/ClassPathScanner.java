@@ -17,69 +17,297 @@ package io.avaje.classpath.scanner.internal.scanner.classpath;
 
 import io.avaje.classpath.scanner.FilterResource;
 import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.CacheStats;
+import io.avaje.classpath.scanner.core.ClassInfo;
+import io.avaje.classpath.scanner.core.ClassRef;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ScanListener;
+import io.avaje.classpath.scanner.internal.ClassFileReader;
+import io.avaje.classpath.scanner.internal.ClassIndex;
 import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.ScanOptions;
 import io.avaje.classpath.scanner.internal.EnvironmentDetection;
+import io.avaje.classpath.scanner.internal.LazyClassRef;
 import io.avaje.classpath.scanner.internal.ResourceAndClassScanner;
+import io.avaje.classpath.scanner.internal.ResourceReader;
+import io.avaje.classpath.scanner.internal.ScanCache;
 import io.avaje.classpath.scanner.internal.UrlUtils;
 import io.avaje.classpath.scanner.internal.scanner.classpath.jboss.JBossVFSv2UrlResolver;
 import io.avaje.classpath.scanner.internal.scanner.classpath.jboss.JBossVFSv3ClassPathLocationScanner;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.lang.System.Logger.Level;
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * ClassPath scanner.
+ * <p>
+ * This is safe for concurrent use. Concurrent requests for the same location or the same
+ * physical location URL are scanned once with the result shared by the callers.
+ * </p>
  */
 public class ClassPathScanner implements ResourceAndClassScanner {
 
   private static final System.Logger log = ScanLog.log;
 
   /**
-   * The ClassLoader for loading migrations on the classpath.
+   * The location used to scan a classpath root in full when enumerating roots.
    */
-  private final ClassLoader classLoader;
+  private static final Location CLASSPATH_ROOT = new Location("classpath:");
 
   /**
-   * Cache location lookups.
+   * The ClassLoader for loading migrations on the classpath (weakly referenced such that a
+   * scanner that is held on to does not prevent an undeployed application being unloaded).
    */
-  private final Map<Location, List<URL>> locationUrlCache = new HashMap<>();
+  private final WeakReference<ClassLoader> classLoader;
+
+  /**
+   * Cache location lookups (per location so not bounded by the roots limit and released by trim).
+   */
+  private final ScanCache<Location, List<URL>> locationUrlCache;
 
   /**
    * Cache location scanners.
    */
-  private final Map<String, ClassPathLocationScanner> locationScannerCache = new HashMap<>();
+  private final Map<String, ClassPathLocationScanner> locationScannerCache = new ConcurrentHashMap<>();
+
+  /**
+   * Cache resource names by the resolved location URL.
+   */
+  private final ScanCache<URL, CachedRoot> resourceNameCache;
 
   /**
-   * Cache resource names.
+   * Cache the class index by location (not bounded by the roots limit and released by trim).
    */
-  private final Map<ClassPathLocationScanner, Map<URL, Set<String>>> resourceNameCache = new HashMap<>();
+  private final ScanCache<Location, CachedClassIndex> classIndexCache;
+
+  /**
+   * Cache the class information of super types outside the indexed locations by class name.
+   * <p>
+   * Not bounded by the roots limit (the entries are per class) and released by trim.
+   * </p>
+   */
+  private final ScanCache<String, Optional<ClassInfo>> superTypeCache;
+
+  /**
+   * Reads resources from the roots they were scanned in keeping the jars open until trimmed.
+   */
+  private final ResourceReader resourceReader = new ResourceReader();
+
   private final boolean websphere;
 
+  /**
+   * The executor used to scan the URLs of a location in parallel (null for sequential).
+   */
+  private final Executor parallelExecutor;
+
+  /**
+   * The maximum number of roots with cached scan results (0 for unbounded) applied to the per root caches.
+   */
+  private final int maxCachedRoots;
+
+  private final ScanListener listener;
+
+  /**
+   * True to revalidate cached roots on access.
+   */
+  private final boolean revalidate;
+
+  /**
+   * The minimum time (nanos) between checks of a cached root when revalidating.
+   */
+  private final long revalidateNanos;
+
+  /**
+   * Persisted snapshot of scan results (null when not used).
+   */
+  private final ScanSnapshot snapshot;
+
+  /**
+   * True to answer locations from the scan results of the discovered classpath roots.
+   */
+  private final boolean enumerateRoots;
+
+  /**
+   * The discovered classpath roots (null until discovered).
+   */
+  private volatile List<URL> roots;
+
   /**
    * Creates a new Classpath scanner.
    *
    * @param classLoader The ClassLoader for loading migrations on the classpath.
    */
   public ClassPathScanner(ClassLoader classLoader) {
-    this.classLoader = classLoader;
+    this(classLoader, new ScanOptions());
+  }
+
+  /**
+   * Creates a new Classpath scanner with the given scan options.
+   *
+   * @param classLoader The ClassLoader for loading migrations on the classpath.
+   * @param options     The options controlling how to scan.
+   */
+  public ClassPathScanner(ClassLoader classLoader, ScanOptions options) {
+    this.classLoader = new WeakReference<>(classLoader);
+    this.parallelExecutor = options.parallelExecutor();
+    this.maxCachedRoots = options.maxCachedRoots();
+    this.locationUrlCache = new ScanCache<>();
+    this.resourceNameCache = new ScanCache<>(maxCachedRoots);
+    this.classIndexCache = new ScanCache<>();
+    this.superTypeCache = new ScanCache<>();
+    this.listener = options.listener();
+    this.revalidate = options.revalidate();
+    this.revalidateNanos = options.revalidateInterval().toNanos();
+    this.snapshot = options.snapshotFile() == null ? null : ScanSnapshot.read(options.snapshotFile(), classLoader);
     this.websphere = classLoader.getClass().getName().startsWith("com.ibm");
+    this.enumerateRoots = options.enumerateRoots();
+  }
+
+  /**
+   * Return the ClassLoader.
+   *
+   * @throws IllegalStateException when the scanner is closed or the ClassLoader has been garbage collected.
+   */
+  private ClassLoader classLoader() {
+    ClassLoader loader = classLoader.get();
+    if (loader == null) {
+      throw new IllegalStateException("Scanner is closed or its ClassLoader has been garbage collected");
+    }
+    return loader;
+  }
+
+  @Override
+  public void trim() {
+    if (snapshot != null) {
+      snapshot.release();
+    }
+    locationUrlCache.clear();
+    resourceNameCache.clear();
+    classIndexCache.clear();
+    superTypeCache.clear();
+    roots = null;
+    resourceReader.release();
+    for (ClassPathLocationScanner locationScanner : locationScannerCache.values()) {
+      locationScanner.trim();
+    }
+  }
+
+  @Override
+  public void readAll(List<? extends Resource> resources, BiConsumer<Resource, byte[]> consumer) {
+    resourceReader.readAll(resources, consumer);
+  }
+
+  @Override
+  public void writeSnapshot() {
+    if (snapshot != null) {
+      snapshot.writeIfChanged();
+    }
+  }
+
+  @Override
+  public void close() {
+    trim();
+    locationScannerCache.clear();
+    resourceReader.close();
+    classLoader.clear();
+  }
+
+  @Override
+  public CacheStats cacheStats() {
+    CacheStats stats = locationUrlCache.stats().plus(resourceNameCache.stats()).plus(classIndexCache.stats()).plus(superTypeCache.stats());
+    for (ClassPathLocationScanner locationScanner : locationScannerCache.values()) {
+      stats = stats.plus(locationScanner.cacheStats());
+    }
+    return stats;
   }
 
   @Override
   public List<Resource> scanForResources(Location path, Predicate<String> predicate) {
     try {
-      List<Resource> resources = new ArrayList<>();
-      for (String resourceName : findResourceNames(path, predicate)) {
-        resources.add(new ClassPathResource(resourceName, classLoader));
+      return toResources(findResourceNames(path, predicate));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<Resource> scanForResources(Location location, ResourceFilter filter) {
+    try {
+      Map<String, URL> resourceNames = new TreeMap<>();
+      for (URL locationUrl : locationUrlsForPath(location)) {
+        addResourceNames(resourceNames, findResourceNames(location, locationUrl, filter), rootUrl(locationUrl, location.path()));
+      }
+      return toResources(resourceNames);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Map<Location, List<Resource>> scanAll(Map<Location, Predicate<String>> locations) {
+    try {
+      // scanned names by classpath root and location path (ancestor locations sort first)
+      Map<String, Map<String, CompactNames>> scannedRoots = new HashMap<>();
+      List<Location> ordered = new ArrayList<>(locations.keySet());
+      ordered.sort(Comparator.comparing(Location::path));
+      Map<Location, Map<String, URL>> found = new HashMap<>();
+      for (Location location : ordered) {
+        Map<String, URL> resourceNames = new TreeMap<>();
+        for (URL locationUrl : locationUrlsForPath(location)) {
+          addResourceNames(resourceNames, findResourceNames(location, locationUrl, scannedRoots), rootUrl(locationUrl, location.path()));
+        }
+        found.put(location, resourceNames);
+      }
+      Map<Location, List<Resource>> result = new LinkedHashMap<>();
+      for (Map.Entry<Location, Predicate<String>> entry : locations.entrySet()) {
+        Location location = entry.getKey();
+        Map<String, URL> resourceNames = found.get(location);
+        Map<String, URL> filtered = filterResourceNames(resourceNames, entry.getValue());
+        listener.resourcesFiltered(location, resourceNames.size(), filtered.size());
+        result.put(location, toResources(filtered));
       }
-      return resources;
+      return result;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public Stream<Resource> streamResources(Location location, Predicate<String> predicate, boolean sorted) {
+    try {
+      ClassLoader loader = classLoader();
+      if (sorted) {
+        return findResourceNames(location, predicate).entrySet().stream()
+          .map(entry -> new ClassPathResource(entry.getKey(), entry.getValue(), loader, resourceReader));
+      }
+      // the first root a resource is found in is the one the ClassLoader uses
+      Set<String> seen = ConcurrentHashMap.newKeySet();
+      return locationUrlsForPath(location).stream()
+        .flatMap(locationUrl -> {
+          URL root = rootUrl(locationUrl, location.path());
+          return findResourceNamesUnchecked(location, locationUrl).stream()
+            .filter(predicate)
+            .filter(seen::add)
+            .map(resourceName -> new ClassPathResource(resourceName, root, loader, resourceReader));
+        });
     } catch (IOException e) {
       throw new UncheckedIOException(e);
     }
@@ -87,24 +315,81 @@ public class ClassPathScanner implements ResourceAndClassScanner {
 
   @Override
   public List<Class<?>> scanForClasses(Location location, Predicate<Class<?>> predicate) {
+    return scanForClasses(location, null, predicate);
+  }
+
+  @Override
+  public List<Class<?>> scanForClasses(Location location, Predicate<ClassInfo> classFilter, Predicate<Class<?>> predicate) {
     try {
       List<Class<?>> classes = new ArrayList<>();
 
-      Set<String> resourceNames = findResourceNames(location, FilterResource.bySuffix(".class"));
+      Map<String, URL> resourceNames = findResourceNames(location, FilterResource.bySuffix(".class"));
       log.log(Level.TRACE, "scan for classes at {0} found {1}", location, resourceNames.size());
-      for (String resourceName : resourceNames) {
+      Set<String> matched = matchClassInfo(resourceNames, classFilter);
+      for (String resourceName : resourceNames.keySet()) {
         String className = toClassName(resourceName);
         try {
           if (!"module-info".equals(className)) {
-            Class<?> clazz = classLoader.loadClass(className);
-            if (predicate.test(clazz)) {
-              classes.add(clazz);
+            if (!matched.contains(resourceName)) {
+              listener.classRejected(className, false);
+            } else {
+              long start = System.nanoTime();
+              Class<?> clazz = classLoader().loadClass(className);
+              listener.classLoaded(className, System.nanoTime() - start);
+              if (predicate.test(clazz)) {
+                classes.add(clazz);
+              } else {
+                listener.classRejected(className, true);
+              }
             }
           }
         } catch (NoClassDefFoundError | ClassNotFoundException err) {
           // This happens on class that inherits from another class which are no longer in the classpath
           // e.g. "public class MyTestRunner extends BlockJUnit4ClassRunner" and junit was in scope "provided"
           log.log(Level.DEBUG, "class " + className + " not loaded and will be ignored", err);
+          listener.classLoadFailed(className, err);
+        }
+      }
+      return classes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<ClassRef> scanForClassRefs(Location location) {
+    try {
+      // the first root a class is found in is the one the ClassLoader uses
+      Map<String, URL> classRoots = new TreeMap<>();
+      for (URL locationUrl : locationUrlsForPath(location)) {
+        URL root = rootUrl(locationUrl, location.path());
+        for (String resourceName : findResourceNames(location, locationUrl)) {
+          if (resourceName.endsWith(".class")) {
+            classRoots.putIfAbsent(resourceName, root);
+          }
+        }
+      }
+      List<ClassRef> refs = new ArrayList<>(classRoots.size());
+      for (Map.Entry<String, URL> entry : classRoots.entrySet()) {
+        String className = toClassName(entry.getKey());
+        if (!"module-info".equals(className)) {
+          refs.add(new LazyClassRef(className, entry.getKey(), entry.getValue(), classLoader(), listener));
+        }
+      }
+      return refs;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<Class<?>> scanForAnnotatedClasses(Location location, Class<? extends Annotation> annotation) {
+    try {
+      List<Class<?>> classes = new ArrayList<>();
+      for (String className : classIndex(location).annotatedWith(annotation.getName())) {
+        Class<?> clazz = loadClass(className);
+        if (clazz != null) {
+          classes.add(clazz);
         }
       }
       return classes;
@@ -113,6 +398,167 @@ public class ClassPathScanner implements ResourceAndClassScanner {
     }
   }
 
+  @Override
+  public Map<String, List<String>> annotationIndex(Location location) {
+    try {
+      return classIndex(location).annotations();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<String> scanForSubtypeNames(Location location, String typeName, Predicate<ClassInfo> classFilter) {
+    try {
+      List<String> names = new ArrayList<>();
+      for (ClassInfo classInfo : classIndex(location).subtypesOf(typeName, this::superTypeInfo)) {
+        if (classFilter == null || classFilter.test(classInfo)) {
+          names.add(classInfo.name());
+        } else {
+          listener.classRejected(classInfo.name(), false);
+        }
+      }
+      return names;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public <T> List<Class<? extends T>> scanForSubtypes(Location location, Class<T> type, Predicate<ClassInfo> classFilter) {
+    List<Class<? extends T>> subtypes = new ArrayList<>();
+    for (String className : scanForSubtypeNames(location, type.getName(), classFilter)) {
+      Class<?> clazz = loadClass(className);
+      if (clazz != null && type.isAssignableFrom(clazz)) {
+        subtypes.add(clazz.asSubclass(type));
+      }
+    }
+    return subtypes;
+  }
+
+  /**
+   * Return the class information of a super type read from its class file (without loading it) or null if not found.
+   */
+  private ClassInfo superTypeInfo(String className) {
+    try {
+      return superTypeCache.get(className, this::readSuperTypeInfo).orElse(null);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Optional<ClassInfo> readSuperTypeInfo(String className) {
+    InputStream inputStream = classLoader().getResourceAsStream(className.replace('.', '/') + ".class");
+    if (inputStream == null) {
+      log.log(Level.DEBUG, "class file of super type {0} not found", className);
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(ClassFileReader.read(inputStream));
+    } catch (IllegalArgumentException | UncheckedIOException e) {
+      log.log(Level.DEBUG, "class file of super type " + className + " not readable", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Return the index of the classes of the location (built from the class files without loading them).
+   */
+  private ClassIndex classIndex(Location location) throws IOException {
+    CachedClassIndex cached = revalidate
+      ? classIndexCache.get(location, this::buildClassIndex, this::unchanged)
+      : classIndexCache.get(location, this::buildClassIndex);
+    return cached.index();
+  }
+
+  /**
+   * Return true if none of the roots the class index was built from have changed.
+   */
+  private boolean unchanged(CachedClassIndex cached) {
+    for (Map.Entry<URL, CachedRoot> entry : cached.roots().entrySet()) {
+      if (!unchanged(entry.getKey(), entry.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private CachedClassIndex buildClassIndex(Location location) throws IOException {
+    ClassIndex index = indexClasses(location);
+    if (!revalidate) {
+      return new CachedClassIndex(index, Map.of());
+    }
+    // the roots as scanned for the index (stamped before they were scanned)
+    Map<URL, CachedRoot> roots = new HashMap<>();
+    for (URL locationUrl : locationUrlsForPath(location)) {
+      URL resolvedUrl = createUrlResolver(locationUrl.getProtocol()).toStandardJavaUrl(locationUrl);
+      CachedRoot root = resourceNameCache.getIfPresent(resolvedUrl);
+      roots.put(resolvedUrl, root != null ? root : new CachedRoot(CompactNames.EMPTY, RootStamp.of(resolvedUrl)));
+    }
+    return new CachedClassIndex(index, roots);
+  }
+
+  private ClassIndex indexClasses(Location location) throws IOException {
+    long start = System.nanoTime();
+    List<Resource> classFiles = toResources(findResourceNames(location, FilterResource.bySuffix(".class")));
+    List<ClassInfo> classInfos = new ArrayList<>(classFiles.size());
+    // each jar is opened once to read all its class files
+    resourceReader.readAll(classFiles, (resource, content) -> {
+      String name = resource.name();
+      if (!"module-info.class".equals(name) && !"package-info.class".equals(name)) {
+        try {
+          classInfos.add(ClassFileReader.read(content));
+        } catch (IllegalArgumentException e) {
+          log.log(Level.DEBUG, "class file " + resource.location() + " not readable and will be ignored", e);
+        }
+      }
+    });
+    log.log(Level.TRACE, "indexed {0} classes at {1} in {2}ms", classInfos.size(), location, (System.nanoTime() - start) / 1_000_000);
+    return ClassIndex.of(classInfos);
+  }
+
+  /**
+   * Load the class returning null (and notifying the listener) if it can not be loaded.
+   */
+  private Class<?> loadClass(String className) {
+    try {
+      long start = System.nanoTime();
+      Class<?> clazz = classLoader().loadClass(className);
+      listener.classLoaded(className, System.nanoTime() - start);
+      return clazz;
+    } catch (NoClassDefFoundError | ClassNotFoundException err) {
+      log.log(Level.DEBUG, "class " + className + " not loaded and will be ignored", err);
+      listener.classLoadFailed(className, err);
+      return null;
+    }
+  }
+
+  /**
+   * Return the names of the class files whose header matches the filter (all when there is no filter).
+   * <p>
+   * The headers are read in one pass from the roots the class files were found in (each jar
+   * read once) rather than searching the ClassLoader for each class file.
+   * </p>
+   */
+  private Set<String> matchClassInfo(Map<String, URL> resourceNames, Predicate<ClassInfo> classFilter) {
+    if (classFilter == null) {
+      return resourceNames.keySet();
+    }
+    Set<String> matched = new HashSet<>();
+    resourceReader.readAll(toResources(resourceNames), (resource, content) -> {
+      if (!"module-info.class".equals(resource.name())) {
+        try {
+          if (classFilter.test(ClassFileReader.read(content))) {
+            matched.add(resource.location());
+          }
+        } catch (IllegalArgumentException e) {
+          log.log(Level.DEBUG, "class file " + resource.location() + " not readable and will be ignored", e);
+        }
+      }
+    });
+    return matched;
+  }
+
   /**
    * Converts this resource name to a fully qualified class name.
    *
@@ -128,33 +574,255 @@ public class ClassPathScanner implements ResourceAndClassScanner {
    * Finds the resources names present at this location and below on the classpath starting with this prefix and
    * ending with this suffix.
    */
-  private Set<String> findResourceNames(Location location, Predicate<String> predicate) throws IOException {
+  private Map<String, URL> findResourceNames(Location location, Predicate<String> predicate) throws IOException {
 
-    Set<String> resourceNames = new TreeSet<>();
+    // resource names with the classpath root they are found in first
+    Map<String, URL> resourceNames = new TreeMap<>();
 
     List<URL> locationsUrls = locationUrlsForPath(location);
+    if (parallelExecutor != null && locationsUrls.size() > 1) {
+      findResourceNamesParallel(location, locationsUrls, parallelExecutor, resourceNames);
+    } else {
+      for (URL locationUrl : locationsUrls) {
+        addResourceNames(resourceNames, findResourceNames(location, locationUrl), rootUrl(locationUrl, location.path()));
+      }
+    }
+
+    Map<String, URL> filtered = filterResourceNames(resourceNames, predicate);
+    listener.resourcesFiltered(location, resourceNames.size(), filtered.size());
+    return filtered;
+  }
+
+  /**
+   * Scan each of the physical URLs in parallel merging the results into the sorted resource names.
+   */
+  private void findResourceNamesParallel(Location location, List<URL> locationsUrls, Executor executor, Map<String, URL> resourceNames) throws IOException {
+    List<CompletableFuture<Set<String>>> futures = new ArrayList<>(locationsUrls.size());
     for (URL locationUrl : locationsUrls) {
-      log.log(Level.TRACE, "scan {0}", locationUrl.toExternalForm());
+      futures.add(CompletableFuture.supplyAsync(() -> findResourceNamesUnchecked(location, locationUrl), executor));
+    }
+    try {
+      // merged in classpath order such that the first root of each name is kept
+      for (int i = 0; i < futures.size(); i++) {
+        addResourceNames(resourceNames, futures.get(i).join(), rootUrl(locationsUrls.get(i), location.path()));
+      }
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw e;
+    }
+  }
 
-      UrlResolver urlResolver = createUrlResolver(locationUrl.getProtocol());
-      URL resolvedUrl = urlResolver.toStandardJavaUrl(locationUrl);
+  private Set<String> findResourceNamesUnchecked(Location location, URL locationUrl) {
+    try {
+      return findResourceNames(location, locationUrl);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 
-      String protocol = resolvedUrl.getProtocol();
-      ClassPathLocationScanner classPathLocationScanner = createLocationScanner(protocol);
-      if (classPathLocationScanner == null) {
-        String scanRoot = UrlUtils.toFilePath(resolvedUrl);
-        log.log(Level.WARNING, "Unable to scan location: {0} (unsupported protocol: {1})", scanRoot, protocol);
-      } else {
-        Set<String> names = resourceNameCache.get(classPathLocationScanner).get(resolvedUrl);
-        if (names == null) {
-          names = classPathLocationScanner.findResourceNames(location.path(), resolvedUrl);
-          resourceNameCache.get(classPathLocationScanner).put(resolvedUrl, names);
+  /**
+   * Finds the resource names present at this location for one of its physical URLs.
+   */
+  private CompactNames findResourceNames(Location location, URL locationUrl) throws IOException {
+    if (enumerateRoots) {
+      CompactNames names = rootIndexNames(location, locationUrl);
+      if (names != null) {
+        return names;
+      }
+    }
+    log.log(Level.TRACE, "scan {0}", locationUrl.toExternalForm());
+
+    UrlResolver urlResolver = createUrlResolver(locationUrl.getProtocol());
+    URL resolvedUrl = urlResolver.toStandardJavaUrl(locationUrl);
+
+    String protocol = resolvedUrl.getProtocol();
+    ClassPathLocationScanner classPathLocationScanner = createLocationScanner(protocol);
+    if (classPathLocationScanner == null) {
+      String scanRoot = UrlUtils.toFilePath(resolvedUrl);
+      log.log(Level.WARNING, "Unable to scan location: {0} (unsupported protocol: {1})", scanRoot, protocol);
+      return CompactNames.EMPTY;
+    }
+    long start = System.nanoTime();
+    boolean[] scanned = new boolean[1];
+    ScanCache.Loader<URL, CachedRoot> loader = url -> {
+      scanned[0] = snapshot == null || revalidate || snapshot.resourceNames(url) == null;
+      return scanResourceNames(classPathLocationScanner, location, url);
+    };
+    CachedRoot root = revalidate
+      ? resourceNameCache.get(resolvedUrl, loader, cached -> unchanged(resolvedUrl, cached))
+      : resourceNameCache.get(resolvedUrl, loader);
+    CompactNames names = root.names();
+    listener.rootScanned(location, resolvedUrl, protocol, names.size(), System.nanoTime() - start, !scanned[0]);
+    return names;
+  }
+
+  /**
+   * Finds the resource names of a location for one of its physical URLs as part of scanning multiple locations.
+   * <p>
+   * When an enclosing location in the same classpath root has already been scanned the names are
+   * taken from that result rather than scanning the root again.
+   * </p>
+   */
+  private Set<String> findResourceNames(Location location, URL locationUrl, Map<String, Map<String, CompactNames>> scannedRoots) throws IOException {
+    URL resolvedUrl = createUrlResolver(locationUrl.getProtocol()).toStandardJavaUrl(locationUrl);
+    String path = location.path();
+    Map<String, CompactNames> scanned = scannedRoots.computeIfAbsent(classPathRoot(resolvedUrl, path), root -> new HashMap<>());
+    CompactNames enclosing = revalidate ? null : enclosingNames(scanned, path, resolvedUrl.getProtocol());
+    CompactNames names;
+    if (enclosing == null) {
+      names = findResourceNames(location, locationUrl);
+    } else {
+      long start = System.nanoTime();
+      CompactNames subset = enclosing.withPrefix(path + "/");
+      names = resourceNameCache.get(resolvedUrl, url -> {
+        if (snapshot != null) {
+          snapshot.putResourceNames(url, subset);
         }
-        resourceNames.addAll(names);
+        return new CachedRoot(subset, RootStamp.NONE);
+      }).names();
+      listener.rootScanned(location, resolvedUrl, resolvedUrl.getProtocol(), names.size(), System.nanoTime() - start, true);
+    }
+    scanned.put(path, names);
+    return names;
+  }
+
+  /**
+   * Return the names of an already scanned location enclosing the given path or null if there is none.
+   */
+  private static CompactNames enclosingNames(Map<String, CompactNames> scanned, String path, String protocol) {
+    if ("file".equals(protocol) && FileSystemClassPathLocationScanner.ignorePath(path)) {
+      // the walk of the enclosing directory skipped this path
+      return null;
+    }
+    for (int end = path.lastIndexOf('/'); end > 0; end = path.lastIndexOf('/', end - 1)) {
+      CompactNames names = scanned.get(path.substring(0, end));
+      if (names != null) {
+        return names;
       }
     }
+    return path.isEmpty() ? null : scanned.get("");
+  }
 
-    return filterResourceNames(resourceNames, predicate);
+  /**
+   * Return the URL of the classpath root containing the location URL.
+   */
+  private static String classPathRoot(URL resolvedUrl, String path) {
+    String url = resolvedUrl.toExternalForm();
+    if (url.endsWith("/")) {
+      url = url.substring(0, url.length() - 1);
+    }
+    return url.endsWith(path) ? url.substring(0, url.length() - path.length()) : url;
+  }
+
+  /**
+   * Return the URL of the classpath root (ending with a slash) containing the location URL or null if not known.
+   */
+  private static URL rootUrl(URL locationUrl, String path) {
+    String url = locationUrl.toExternalForm();
+    if (url.endsWith("/")) {
+      url = url.substring(0, url.length() - 1);
+    }
+    if (!url.endsWith(path)) {
+      return null;
+    }
+    String root = path.isEmpty() ? url + "/" : url.substring(0, url.length() - path.length());
+    if (!root.endsWith("/")) {
+      return null;
+    }
+    try {
+      return new URL(locationUrl, root);
+    } catch (MalformedURLException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Add the names found in a root keeping the root of names already found in an earlier root.
+   */
+  private static void addResourceNames(Map<String, URL> resourceNames, Set<String> names, URL root) {
+    for (String name : names) {
+      resourceNames.putIfAbsent(name, root);
+    }
+  }
+
+  private List<Resource> toResources(Map<String, URL> resourceNames) {
+    ClassLoader loader = classLoader();
+    List<Resource> resources = new ArrayList<>(resourceNames.size());
+    for (Map.Entry<String, URL> entry : resourceNames.entrySet()) {
+      resources.add(new ClassPathResource(entry.getKey(), entry.getValue(), loader, resourceReader));
+    }
+    return resources;
+  }
+
+  /**
+   * Return true if the root has not changed since it was scanned.
+   * <p>
+   * A root checked within the revalidate interval is not checked again.
+   * </p>
+   */
+  private boolean unchanged(URL resolvedUrl, CachedRoot cached) {
+    long now = System.nanoTime();
+    if (now - cached.checkedAt() < revalidateNanos) {
+      return true;
+    }
+    if (cached.stamp() != RootStamp.of(resolvedUrl)) {
+      return false;
+    }
+    cached.checked(now);
+    return true;
+  }
+
+  /**
+   * Finds the resource names matching the filter for one of the physical URLs of the location.
+   * <p>
+   * When all the resource names of the URL are already known (cached or in the snapshot) those
+   * are filtered. Otherwise the filter is pushed down to the location scanner such that it can
+   * skip directories and jar entries that can not match (and the partial result is not cached).
+   * </p>
+   */
+  private Set<String> findResourceNames(Location location, URL locationUrl, ResourceFilter filter) throws IOException {
+    URL resolvedUrl = createUrlResolver(locationUrl.getProtocol()).toStandardJavaUrl(locationUrl);
+    String protocol = resolvedUrl.getProtocol();
+    ClassPathLocationScanner classPathLocationScanner = createLocationScanner(protocol);
+    if (classPathLocationScanner == null) {
+      log.log(Level.WARNING, "Unable to scan location: {0} (unsupported protocol: {1})", UrlUtils.toFilePath(resolvedUrl), protocol);
+      return Collections.emptySet();
+    }
+    long start = System.nanoTime();
+    CompactNames allNames = enumerateRoots ? rootIndexNames(location, locationUrl) : null;
+    if (allNames == null) {
+      CachedRoot cached = resourceNameCache.getIfPresent(resolvedUrl);
+      if (cached != null && (!revalidate || unchanged(resolvedUrl, cached))) {
+        allNames = cached.names();
+      } else if (snapshot != null && !revalidate) {
+        allNames = snapshot.resourceNames(resolvedUrl);
+      }
+    }
+    String path = location.path();
+    Set<String> names;
+    if (allNames != null) {
+      // only decode the names under the location and filter directory
+      String prefix = path.isEmpty() ? "" : path + "/";
+      if (filter.directory() != null) {
+        prefix += filter.directory() + "/";
+      }
+      names = new TreeSet<>();
+      for (String name : allNames.withPrefix(prefix)) {
+        if (filter.matches(path, name)) {
+          names.add(name);
+        }
+      }
+    } else {
+      names = classPathLocationScanner.findResourceNames(path, resolvedUrl, filter);
+    }
+    listener.rootScanned(location, resolvedUrl, protocol, names.size(), System.nanoTime() - start, allNames != null);
+    return names;
   }
 
   /**
@@ -165,29 +833,128 @@ public class ClassPathScanner implements ResourceAndClassScanner {
    * @throws IOException when the lookup fails.
    */
   private List<URL> locationUrlsForPath(Location location) throws IOException {
-    final List<URL> urls = locationUrlCache.get(location);
-    if (urls != null) {
-      return urls;
+    long start = System.nanoTime();
+    boolean[] loaded = new boolean[1];
+    List<URL> urls = locationUrlCache.get(location, key -> {
+      loaded[0] = snapshot == null || snapshot.locationUrls(key) == null;
+      return loadLocationUrls(key);
+    });
+    listener.locationResolved(location, urls.size(), System.nanoTime() - start, !loaded[0]);
+    return urls;
+  }
+
+  /**
+   * Scan the resource names of this physical location URL.
+   */
+  private CachedRoot scanResourceNames(ClassPathLocationScanner locationScanner, Location location, URL resolvedUrl) throws IOException {
+    // stamp before scanning such that a change during the scan is detected later
+    long stamp = revalidate ? RootStamp.of(resolvedUrl) : RootStamp.NONE;
+    if (snapshot != null && !revalidate) {
+      CompactNames names = snapshot.resourceNames(resolvedUrl);
+      if (names != null) {
+        return new CachedRoot(names, stamp);
+      }
+    }
+    CompactNames names = CompactNames.of(locationScanner.findResourceNames(location.path(), resolvedUrl));
+    if (snapshot != null) {
+      snapshot.putResourceNames(resolvedUrl, names);
+    }
+    return new CachedRoot(names, stamp);
+  }
+
+  private List<URL> loadLocationUrls(Location location) throws IOException {
+    if (snapshot != null) {
+      List<URL> urls = snapshot.locationUrls(location);
+      if (urls != null) {
+        return urls;
+      }
     }
     List<URL> locationUrls = new ArrayList<>();
-    if (websphere) {
+    if (enumerateRoots) {
+      loadRootLocationUrls(location, locationUrls);
+    } else if (websphere) {
       loadWebsphereUrls(location, locationUrls);
     } else {
       loadLocationUrls(location, locationUrls);
     }
-    locationUrlCache.put(location, locationUrls);
-    return locationUrls;
+    List<URL> urls = Collections.unmodifiableList(locationUrls);
+    if (snapshot != null) {
+      snapshot.putLocationUrls(location, urls);
+    }
+    return urls;
   }
 
   private void loadLocationUrls(Location location, List<URL> locationUrls) throws IOException {
-    Enumeration<URL> urls = classLoader.getResources(location.path());
+    Enumeration<URL> urls = classLoader().getResources(location.path());
     while (urls.hasMoreElements()) {
       locationUrls.add(urls.nextElement());
     }
   }
 
+  /**
+   * Add the URL of the location in each classpath root that contains it without asking the ClassLoader.
+   */
+  private void loadRootLocationUrls(Location location, List<URL> locationUrls) throws IOException {
+    String path = location.path();
+    for (URL root : roots()) {
+      if (path.isEmpty()) {
+        locationUrls.add(root);
+      } else if (inRootIndex(root, path)) {
+        if (!findResourceNames(CLASSPATH_ROOT, root).withPrefix(path + "/").isEmpty()) {
+          locationUrls.add(new URL(root, path));
+        }
+      } else {
+        URL locationUrl = new URL(root, path);
+        if (new File(UrlUtils.toFilePath(locationUrl)).isDirectory()) {
+          locationUrls.add(locationUrl);
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the names under the location taken from the scan of its classpath root or null
+   * if the location is not answered from its root.
+   */
+  private CompactNames rootIndexNames(Location location, URL locationUrl) throws IOException {
+    String path = location.path();
+    if (path.isEmpty()) {
+      return null;
+    }
+    URL root = rootUrl(locationUrl, path);
+    if (root == null || !inRootIndex(root, path)) {
+      return null;
+    }
+    return findResourceNames(CLASSPATH_ROOT, root).withPrefix(path + "/");
+  }
+
+  /**
+   * Return true if the scan of the root includes the path (the walk of a directory skips some paths).
+   */
+  private static boolean inRootIndex(URL root, String path) {
+    return !"file".equals(root.getProtocol()) || !FileSystemClassPathLocationScanner.ignorePath(path);
+  }
+
+  /**
+   * Return the classpath roots discovering them on first use.
+   */
+  private List<URL> roots() {
+    List<URL> discovered = roots;
+    if (discovered == null) {
+      synchronized (this) {
+        discovered = roots;
+        if (discovered == null) {
+          discovered = ClassPathRoots.discover(classLoader(), (JarFileClassPathLocationScanner) createLocationScanner("jar"));
+          log.log(Level.DEBUG, "discovered {0} classpath roots", discovered.size());
+          roots = discovered;
+        }
+      }
+    }
+    return discovered;
+  }
+
   private void loadWebsphereUrls(Location location, List<URL> locationUrls) throws IOException {
-    Enumeration<URL> urls = classLoader.getResources(location.toString());
+    Enumeration<URL> urls = classLoader().getResources(location.toString());
     while (urls.hasMoreElements()) {
       URL url = urls.nextElement();
       locationUrls.add(new URL(URLDecoder.decode(url.toExternalForm(), StandardCharsets.UTF_8)));
@@ -201,7 +968,7 @@ public class ClassPathScanner implements ResourceAndClassScanner {
    * @return The url resolver for this protocol.
    */
   private UrlResolver createUrlResolver(String protocol) {
-    if (new EnvironmentDetection(classLoader).isJBossVFSv2() && protocol.startsWith("vfs")) {
+    if (new EnvironmentDetection(classLoader()).isJBossVFSv2() && protocol.startsWith("vfs")) {
       return new JBossVFSv2UrlResolver();
     }
     return new DefaultUrlResolver();
@@ -214,39 +981,30 @@ public class ClassPathScanner implements ResourceAndClassScanner {
    * @return The location scanner or {@code null} if it could not be created.
    */
   private ClassPathLocationScanner createLocationScanner(String protocol) {
-    final ClassPathLocationScanner scanner = locationScannerCache.get(protocol);
-    if (scanner != null) {
-      return scanner;
-    }
+    return locationScannerCache.computeIfAbsent(protocol, this::newLocationScanner);
+  }
 
+  private ClassPathLocationScanner newLocationScanner(String protocol) {
     if ("file".equals(protocol)) {
-      FileSystemClassPathLocationScanner locationScanner = new FileSystemClassPathLocationScanner();
-      locationScannerCache.put(protocol, locationScanner);
-      resourceNameCache.put(locationScanner, new HashMap<>());
-      return locationScanner;
+      return new FileSystemClassPathLocationScanner();
     }
 
     //zip - WebLogic, wsjar - WebSphere
     if ("jar".equals(protocol) || "zip".equals(protocol) || "wsjar".equals(protocol)) {
-      JarFileClassPathLocationScanner locationScanner = new JarFileClassPathLocationScanner();
-      locationScannerCache.put(protocol, locationScanner);
-      resourceNameCache.put(locationScanner, new HashMap<>());
-      return locationScanner;
+      return new JarFileClassPathLocationScanner(maxCachedRoots);
     }
 
-    EnvironmentDetection featureDetector = new EnvironmentDetection(classLoader);
+    EnvironmentDetection featureDetector = new EnvironmentDetection(classLoader());
     if (featureDetector.isJBossVFSv3() && "vfs".equals(protocol)) {
-      JBossVFSv3ClassPathLocationScanner locationScanner = new JBossVFSv3ClassPathLocationScanner();
-      locationScannerCache.put(protocol, locationScanner);
-      resourceNameCache.put(locationScanner, new HashMap<>());
-      return locationScanner;
+      return new JBossVFSv3ClassPathLocationScanner();
     }
     // bundle - Felix, bundleresource - Equinox
     if (featureDetector.isOsgi() && ("bundle".equals(protocol) || "bundleresource".equals(protocol)) ) {
-      OsgiClassPathLocationScanner locationScanner = new OsgiClassPathLocationScanner();
-      locationScannerCache.put(protocol, locationScanner);
-      resourceNameCache.put(locationScanner, new HashMap<>());
-      return locationScanner;
+      return new OsgiClassPathLocationScanner();
+    }
+    // jrt - runtime image, or the location scheme of a module of the boot layer
+    if (ModuleClassPathLocationScanner.supports(protocol)) {
+      return new ModuleClassPathLocationScanner(maxCachedRoots);
     }
     return null;
   }
@@ -254,11 +1012,11 @@ public class ClassPathScanner implements ResourceAndClassScanner {
   /**
    * Filters this list of resource names to only include the ones whose filename matches this prefix and this suffix.
    */
-  private Set<String> filterResourceNames(Set<String> resourceNames, Predicate<String> predicate) {
-    Set<String> filteredResourceNames = new TreeSet<>();
-    for (String resourceName : resourceNames) {
-      if (predicate.test(resourceName)) {
-        filteredResourceNames.add(resourceName);
+  private Map<String, URL> filterResourceNames(Map<String, URL> resourceNames, Predicate<String> predicate) {
+    Map<String, URL> filteredResourceNames = new TreeMap<>();
+    for (Map.Entry<String, URL> entry : resourceNames.entrySet()) {
+      if (predicate.test(entry.getKey())) {
+        filteredResourceNames.put(entry.getKey(), entry.getValue());
       }
     }
     return filteredResourceNames;
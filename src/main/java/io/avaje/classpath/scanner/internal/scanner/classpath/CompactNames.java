@@ -0,0 +1,275 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted set of resource names stored front coded in a single byte array.
+ * <p>
+ * The names are sorted by their UTF-8 bytes and grouped into buckets of 16. The first name of
+ * each bucket is stored in full and each following name is stored as the length of the prefix
+ * it shares with the previous name plus the remaining bytes. As resource names share long
+ * package prefixes this is a fraction of the size of a set of Strings.
+ * </p>
+ * <p>
+ * Strings are only created as names are iterated. A prefix range ({@link #withPrefix(String)})
+ * is found by binary search over the bucket heads and returned as a view without copying.
+ * </p>
+ */
+final class CompactNames extends AbstractSet<String> {
+
+  private static final int BUCKET_SIZE = 16;
+
+  static final CompactNames EMPTY = new CompactNames(new byte[0], new int[0], 0, 0, 0);
+
+  /**
+   * The front coded names.
+   */
+  private final byte[] data;
+
+  /**
+   * The offset into data of the first (full) name of each bucket.
+   */
+  private final int[] buckets;
+
+  /**
+   * The total number of names in data.
+   */
+  private final int count;
+
+  /**
+   * The index of the first name of this view (inclusive).
+   */
+  private final int from;
+
+  /**
+   * The index of the last name of this view (exclusive).
+   */
+  private final int to;
+
+  private CompactNames(byte[] data, int[] buckets, int count, int from, int to) {
+    this.data = data;
+    this.buckets = buckets;
+    this.count = count;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Return the compact form of the given names.
+   */
+  static CompactNames of(Collection<String> names) {
+    if (names instanceof CompactNames) {
+      return (CompactNames) names;
+    }
+    if (names.isEmpty()) {
+      return EMPTY;
+    }
+    byte[][] encoded = new byte[names.size()][];
+    int i = 0;
+    for (String name : names) {
+      encoded[i++] = name.getBytes(StandardCharsets.UTF_8);
+    }
+    Arrays.sort(encoded, Arrays::compareUnsigned);
+    int count = 0;
+    byte[] data = new byte[64];
+    int length = 0;
+    int[] buckets = new int[(encoded.length + BUCKET_SIZE - 1) / BUCKET_SIZE];
+    byte[] previous = null;
+    for (byte[] name : encoded) {
+      if (previous != null && Arrays.equals(previous, name)) {
+        continue;
+      }
+      int shared = 0;
+      if (count % BUCKET_SIZE == 0) {
+        buckets[count / BUCKET_SIZE] = length;
+      } else {
+        shared = Arrays.mismatch(previous, name);
+        if (shared == -1) {
+          shared = previous.length;
+        }
+      }
+      int suffix = name.length - shared;
+      if (length + 10 + suffix > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10 + suffix));
+      }
+      if (count % BUCKET_SIZE != 0) {
+        length = writeVarInt(data, length, shared);
+      }
+      length = writeVarInt(data, length, suffix);
+      System.arraycopy(name, shared, data, length, suffix);
+      length += suffix;
+      previous = name;
+      count++;
+    }
+    int bucketCount = (count + BUCKET_SIZE - 1) / BUCKET_SIZE;
+    return new CompactNames(Arrays.copyOf(data, length), Arrays.copyOf(buckets, bucketCount), count, 0, count);
+  }
+
+  @Override
+  public int size() {
+    return to - from;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    Cursor cursor = new Cursor(from);
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return cursor.index < to;
+      }
+
+      @Override
+      public String next() {
+        if (cursor.index >= to) {
+          throw new NoSuchElementException();
+        }
+        String name = cursor.name();
+        cursor.next();
+        return name;
+      }
+    };
+  }
+
+  @Override
+  public boolean contains(Object value) {
+    if (!(value instanceof String)) {
+      return false;
+    }
+    byte[] key = ((String) value).getBytes(StandardCharsets.UTF_8);
+    Cursor cursor = new Cursor(lowerBound(key));
+    return cursor.index < to && cursor.compareTo(key) == 0;
+  }
+
+  /**
+   * Return a view of the names starting with the given prefix.
+   */
+  CompactNames withPrefix(String prefix) {
+    if (prefix.isEmpty()) {
+      return this;
+    }
+    byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+    int start = lowerBound(key);
+    byte[] successor = successor(key);
+    int end = successor == null ? to : Math.min(lowerBound(successor), to);
+    return start >= end ? EMPTY : new CompactNames(data, buckets, count, start, end);
+  }
+
+  /**
+   * Return the smallest key greater than all the keys starting with the prefix (or null if
+   * there is no such key as the prefix is all 0xFF bytes).
+   */
+  private static byte[] successor(byte[] prefix) {
+    for (int i = prefix.length - 1; i >= 0; i--) {
+      if (prefix[i] != (byte) 0xFF) {
+        byte[] successor = Arrays.copyOf(prefix, i + 1);
+        successor[i]++;
+        return successor;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return the index of the first name in this view greater than or equal to the key.
+   */
+  private int lowerBound(byte[] key) {
+    // find the last bucket with a head less than the key
+    int low = 0;
+    int high = buckets.length - 1;
+    int bucket = 0;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (new Cursor(mid * BUCKET_SIZE).compareTo(key) < 0) {
+        bucket = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    Cursor cursor = new Cursor(Math.max(bucket * BUCKET_SIZE, from));
+    while (cursor.index < to && cursor.compareTo(key) < 0) {
+      cursor.next();
+    }
+    return Math.max(cursor.index, from);
+  }
+
+  private static int writeVarInt(byte[] buffer, int pos, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[pos++] = (byte) value;
+    return pos;
+  }
+
+  /**
+   * Decodes the names sequentially from a position into a reusable byte buffer.
+   */
+  private final class Cursor {
+
+    private byte[] name = new byte[64];
+    private int length;
+    private int index;
+    private int pos;
+
+    Cursor(int start) {
+      this.index = start - start % BUCKET_SIZE;
+      if (index < count) {
+        this.pos = buckets[index / BUCKET_SIZE];
+        read();
+        while (index < start) {
+          next();
+        }
+      } else {
+        this.index = start;
+      }
+    }
+
+    /**
+     * Move to the next name.
+     */
+    void next() {
+      index++;
+      if (index < count) {
+        read();
+      }
+    }
+
+    private void read() {
+      int shared = index % BUCKET_SIZE == 0 ? 0 : readVarInt();
+      int suffix = readVarInt();
+      length = shared + suffix;
+      if (length > name.length) {
+        name = Arrays.copyOf(name, Math.max(length, name.length * 2));
+      }
+      System.arraycopy(data, pos, name, shared, suffix);
+      pos += suffix;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[pos++];
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+
+    String name() {
+      return new String(name, 0, length, StandardCharsets.UTF_8);
+    }
+
+    int compareTo(byte[] key) {
+      return Arrays.compareUnsigned(name, 0, length, key, 0, key.length);
+    }
+  }
+}
@@ -15,12 +15,23 @@
  */
 package io.avaje.classpath.scanner.internal.scanner.classpath;
 
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.internal.ResourceFilterMatcher;
 import io.avaje.classpath.scanner.internal.ScanLog;
 import io.avaje.classpath.scanner.internal.UrlUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.System.Logger.Level;
 import java.net.URL;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -31,6 +42,14 @@ public class FileSystemClassPathLocationScanner implements ClassPathLocationScan
   private static final System.Logger log = ScanLog.log;
 
   public Set<String> findResourceNames(String location, URL locationUrl) {
+    return findResourceNames(location, locationUrl, null);
+  }
+
+  /**
+   * Finds the resource names matching the filter skipping directories that can not contain a match.
+   */
+  @Override
+  public Set<String> findResourceNames(String location, URL locationUrl, ResourceFilter filter) {
     String filePath = UrlUtils.toFilePath(locationUrl);
     File folder = new File(filePath);
     if (!folder.isDirectory()) {
@@ -41,11 +60,14 @@ public class FileSystemClassPathLocationScanner implements ClassPathLocationScan
       classPathRootOnDisk = classPathRootOnDisk + File.separator;
     }
     log.log(Level.TRACE, "scan starting at root in filesystem: {0}", classPathRootOnDisk);
-    return findResourceNamesFromFileSystem(classPathRootOnDisk, location, folder);
+    return findResourceNamesFromFileSystem(classPathRootOnDisk, location, folder, filter);
   }
 
   /**
    * Finds all the resource names contained in this file system folder.
+   * <p>
+   * Walks the tree reading the attributes of each entry once and collecting into a single set.
+   * </p>
    *
    * @param classPathRootOnDisk The location of the classpath root on disk, with a trailing slash.
    * @param scanRootLocation    The root location of the scan on the classpath, without leading or trailing slashes.
@@ -53,43 +75,77 @@ public class FileSystemClassPathLocationScanner implements ClassPathLocationScan
    * @return The resource names;
    */
   Set<String> findResourceNamesFromFileSystem(String classPathRootOnDisk, String scanRootLocation, File folder) {
+    return findResourceNamesFromFileSystem(classPathRootOnDisk, scanRootLocation, folder, null);
+  }
+
+  /**
+   * Finds the resource names contained in this file system folder that match the filter.
+   *
+   * @param classPathRootOnDisk The location of the classpath root on disk, with a trailing slash.
+   * @param scanRootLocation    The root location of the scan on the classpath, without leading or trailing slashes.
+   * @param folder              The folder to look for resources under on disk.
+   * @param filter              The filter to match or null to include all resources.
+   * @return The resource names;
+   */
+  Set<String> findResourceNamesFromFileSystem(String classPathRootOnDisk, String scanRootLocation, File folder, ResourceFilter filter) {
     log.log(Level.TRACE, "scan resources in path: {0} ({1})", folder.getPath(), scanRootLocation);
     Set<String> resourceNames = new TreeSet<>();
+    Path start = folder.toPath().toAbsolutePath();
+    int rootLength = classPathRootOnDisk.length();
+    int relativeStart = scanRootLocation.isEmpty() ? 0 : scanRootLocation.length() + 1;
+    try {
+      Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (dir.equals(start)) {
+            return FileVisitResult.CONTINUE;
+          }
+          String resourcePath = toResourceNameOnClasspath(rootLength, dir);
+          if (ignorePath(resourcePath) || (filter != null && !ResourceFilterMatcher.includeDirectory(filter, resourcePath.substring(relativeStart)))) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
 
-    File[] files = folder.listFiles();
-    if (files != null) {
-      for (File file : files) {
-        if (file.canRead()) {
-          String resourcePath = toResourceNameOnClasspath(classPathRootOnDisk, file);
-          if (file.isDirectory()) {
-            if (!ignorePath(resourcePath)) {
-              resourceNames.addAll(findResourceNamesFromFileSystem(classPathRootOnDisk, scanRootLocation, file));
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (!attrs.isDirectory()) {
+            String resourceName = toResourceNameOnClasspath(rootLength, file);
+            if (filter == null || ResourceFilterMatcher.matchesRelativeFrom(filter, resourceName, relativeStart)) {
+              resourceNames.add(resourceName);
             }
-          } else {
-            resourceNames.add(resourcePath);
           }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          log.log(Level.TRACE, "skip unreadable path: {0} ({1})", file, exc);
+          return FileVisitResult.CONTINUE;
         }
-      }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
     return resourceNames;
   }
 
-  private boolean ignorePath(String resourcePath) {
+  static boolean ignorePath(String resourcePath) {
     return resourcePath.startsWith("io/avaje/classpath") || resourcePath.startsWith("io/ebean");
   }
 
   /**
    * Converts this file into a resource name on the classpath.
    *
-   * @param classPathRootOnDisk The location of the classpath root on disk, with a trailing slash.
-   * @param file                The file.
+   * @param rootLength The length of the location of the classpath root on disk, with a trailing slash.
+   * @param file       The absolute path of the file.
    * @return The resource name on the classpath.
    */
-  private String toResourceNameOnClasspath(String classPathRootOnDisk, File file) {
-    String fileName = file.getAbsolutePath().replace("\\", "/");
+  private static String toResourceNameOnClasspath(int rootLength, Path file) {
     //Cut off the part on disk leading to the root of the classpath
     //This leaves a resource name starting with the scanRootLocation,
     //   with no leading slash, containing subDirs and the fileName.
-    return fileName.substring(classPathRootOnDisk.length());
+    String resourceName = file.toString().substring(rootLength);
+    return File.separatorChar == '/' ? resourceName : resourceName.replace(File.separatorChar, '/');
   }
 }
@@ -15,30 +15,191 @@
  */
 package io.avaje.classpath.scanner.internal.scanner.classpath;
 
+import io.avaje.classpath.scanner.core.CacheStats;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.internal.ScanCache;
+import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+
+import java.io.File;
 import java.io.IOException;
+import java.lang.System.Logger.Level;
 import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.util.Enumeration;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.jar.JarEntry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarFile;
 
 /**
  * ClassPathLocationScanner for jar files.
+ * <p>
+ * The entries of each physical jar file are indexed once and that index is then
+ * shared by all the locations scanned from that jar. Local jar files are indexed by
+ * reading their central directory directly rather than opening a JarFile.
+ * </p>
+ * <p>
+ * Jars nested in a local jar (e.g. the libraries of an executable fat jar) are indexed
+ * in place without extracting them.
+ * </p>
+ * <p>
+ * The versioned entries of a multi-release jar are resolved when the jar is indexed such that
+ * each resource is found once by its base name with the version for the running Java version.
+ * </p>
  */
 public class JarFileClassPathLocationScanner implements ClassPathLocationScanner {
 
+  private static final System.Logger log = ScanLog.log;
+
+  /**
+   * Entry index keyed by the physical jar file.
+   */
+  private final ScanCache<String, JarIndex> jarIndexCache;
+
+  /**
+   * Central directory of the outer jars containing nested jars (keyed by the outer jar file).
+   */
+  private final ScanCache<String, ZipCentralDirectory> outerDirectoryCache;
+
+  /**
+   * The current versioned cache key of each local jar file.
+   */
+  private final Map<String, String> versionedKeys = new ConcurrentHashMap<>();
+
+  /**
+   * Create with unbounded caches.
+   */
+  public JarFileClassPathLocationScanner() {
+    this(0);
+  }
+
+  /**
+   * Create caching the indexes of at most the given number of jars (0 for unbounded).
+   */
+  public JarFileClassPathLocationScanner(int maxCachedJars) {
+    this.jarIndexCache = new ScanCache<>(maxCachedJars);
+    this.outerDirectoryCache = new ScanCache<>(maxCachedJars);
+  }
+
   public Set<String> findResourceNames(String location, URL locationUrl) throws IOException {
+    return jarIndex(locationUrl).findResourceNames(location);
+  }
+
+  @Override
+  public Set<String> findResourceNames(String location, URL locationUrl, ResourceFilter filter) throws IOException {
+    return jarIndex(locationUrl).findResourceNames(location, filter);
+  }
+
+  /**
+   * Return the Class-Path of the manifest of the jar of the location URL (null when not declared).
+   * <p>
+   * The manifest is read when the jar is indexed such that this does not read the jar again.
+   * </p>
+   */
+  String manifestClassPath(URL locationUrl) throws IOException {
+    return jarIndex(locationUrl).classPath();
+  }
+
+  @Override
+  public void trim() {
+    jarIndexCache.clear();
+    outerDirectoryCache.clear();
+    versionedKeys.clear();
+  }
+
+  @Override
+  public CacheStats cacheStats() {
+    return jarIndexCache.stats().plus(outerDirectoryCache.stats());
+  }
+
+  /**
+   * Return the number of jar files that have been indexed.
+   */
+  int jarIndexCount() {
+    return jarIndexCache.size();
+  }
+
+  /**
+   * Return the entry index for the jar file containing this location URL building it if required.
+   */
+  private JarIndex jarIndex(URL locationUrl) throws IOException {
+    NestedJar nestedJar = NestedJar.parse(locationUrl);
+    if (nestedJar != null) {
+      String outerKey = versionedKey(nestedJar.outerFile().getPath());
+      return jarIndexCache.get(outerKey + "!/" + nestedJar.entryName(), key -> nestedJarIndex(nestedJar, outerKey));
+    }
+    String jarFile = jarFileKey(locationUrl);
+    return jarIndexCache.get(versionedKey(jarFile), key -> loadJarIndex(jarFile, locationUrl));
+  }
+
+  /**
+   * Return the index for a jar nested in another jar or for a directory of a jar used as a classpath root.
+   */
+  private JarIndex nestedJarIndex(NestedJar nestedJar, String outerKey) throws IOException {
+    File outerFile = nestedJar.outerFile();
+    if (!nestedJar.isJar()) {
+      JarIndex outer = jarIndexCache.get(outerKey, key -> JarIndex.read(outerFile.toPath()));
+      return outer.withPrefix(nestedJar.entryName() + "/");
+    }
+    return nestedJar.readIndex(outerDirectoryCache.get(outerKey, key -> ZipCentralDirectory.read(outerFile.toPath())));
+  }
+
+  /**
+   * Return the cache key for a jar file including its size and last modified time such that a jar
+   * that is replaced (e.g. rebuilt while a development server is running) is indexed again.
+   * The entries for the previous version of the jar are removed.
+   */
+  private String versionedKey(String jarFileKey) {
+    File file = new File(jarFileKey);
+    if (!file.isFile()) {
+      return jarFileKey;
+    }
+    String key = jarFileKey + '@' + file.length() + '-' + file.lastModified();
+    String previous = versionedKeys.put(jarFileKey, key);
+    if (previous != null && !previous.equals(key)) {
+      jarIndexCache.removeIf(cacheKey -> cacheKey.equals(previous) || cacheKey.startsWith(previous + "!/"));
+      outerDirectoryCache.remove(previous);
+    }
+    return key;
+  }
+
+  /**
+   * Read the central directory of a local jar file directly falling back to JarFile
+   * for remote jars and for jars the central directory reader does not support.
+   */
+  private JarIndex loadJarIndex(String jarFileKey, URL locationUrl) throws IOException {
+    File file = new File(jarFileKey);
+    if (file.isFile()) {
+      try {
+        return JarIndex.read(file.toPath());
+      } catch (IOException e) {
+        log.log(Level.DEBUG, "reading central directory of " + jarFileKey + " failed, using JarFile", e);
+      }
+    }
     try (JarFile jarFile = getJarFromUrl(locationUrl)) {
-      // For Tomcat and non-expanded WARs.
-      String prefix = jarFile.getName().toLowerCase().endsWith(".war") ? "WEB-INF/classes/" : "";
-      return findResourceNamesFromJarFile(jarFile, prefix, location);
+      return JarIndex.of(jarFile);
     }
   }
 
+  /**
+   * Return the key identifying the physical jar file of this location URL (without opening the jar).
+   */
+  private String jarFileKey(URL locationUrl) throws IOException {
+    URLConnection con = locationUrl.openConnection();
+    if (con instanceof JarURLConnection) {
+      URL jarFileUrl = ((JarURLConnection) con).getJarFileURL();
+      if ("file".equals(jarFileUrl.getProtocol())) {
+        return new File(UrlUtils.toFilePath(jarFileUrl)).getCanonicalPath();
+      }
+      return jarFileUrl.toExternalForm();
+    }
+    String urlFile = locationUrl.getFile();
+    int separatorIndex = urlFile.indexOf("!/");
+    return separatorIndex == -1 ? urlFile : urlFile.substring(0, separatorIndex);
+  }
+
   /**
    * Retrieves the Jar file represented by this URL.
    *
@@ -77,27 +238,4 @@ public class JarFileClassPathLocationScanner implements ClassPathLocationScanner
 
     return new JarFile(urlFile);
   }
-
-  /**
-   * Finds all the resource names contained in this directory within this jar file.
-   *
-   * @param jarFile  The jar file.
-   * @param prefix   The prefix to ignore within the jar file.
-   * @param location The location to look under.
-   * @return The resource names.
-   */
-  private Set<String> findResourceNamesFromJarFile(JarFile jarFile, String prefix, String location) {
-    String toScan = prefix + location + (location.endsWith("/") ? "" : "/");
-    Set<String> resourceNames = new TreeSet<>();
-
-    Enumeration<JarEntry> entries = jarFile.entries();
-    while (entries.hasMoreElements()) {
-      String entryName = entries.nextElement().getName();
-      if (entryName.startsWith(toScan)) {
-        resourceNames.add(entryName.substring(prefix.length()));
-      }
-    }
-
-    return resourceNames;
-  }
 }
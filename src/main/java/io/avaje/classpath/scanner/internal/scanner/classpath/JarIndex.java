@@ -0,0 +1,396 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.internal.ResourceFilterMatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Sorted index of all the entry names of a jar file (or of the resource names of a module).
+ * <p>
+ * Built once per physical jar and then used to answer any location in the jar
+ * via a prefix range lookup. The entry names are held as UTF-8 bytes such that
+ * the lookup compares bytes without allocating and only the matching entries
+ * are decoded into Strings.
+ * </p>
+ * <p>
+ * A multi-release jar is resolved once into a logical view for the running Java version
+ * such that each resource appears once under its base name (as the JarFile of the ClassLoader
+ * would see it) rather than also appearing under <code>META-INF/versions/NN/</code>.
+ * </p>
+ */
+final class JarIndex {
+
+  /**
+   * The directory of the versioned entries of a multi-release jar.
+   */
+  private static final byte[] VERSIONS = utf8("META-INF/versions/");
+
+  /**
+   * The Java version used to choose the versioned entries of a multi-release jar.
+   */
+  private static final int RELEASE = Runtime.version().feature();
+
+  /**
+   * The lowest version of a versioned entry (the base entries are for Java 8).
+   */
+  private static final int MIN_VERSION = 9;
+
+  /**
+   * The UTF-8 bytes of all the entry names.
+   */
+  private final byte[] names;
+
+  /**
+   * The start offset into names of each entry, ordered by the entry name bytes
+   * such that entries sharing a prefix are contiguous.
+   */
+  private final int[] starts;
+
+  /**
+   * The end offset (exclusive) into names of each entry (same order as starts).
+   */
+  private final int[] ends;
+
+  /**
+   * The prefix to ignore within the jar file (e.g. WEB-INF/classes/ for a war).
+   */
+  private final String prefix;
+
+  /**
+   * The Class-Path of the manifest of a local jar (null when not declared).
+   */
+  private final String classPath;
+
+  private JarIndex(byte[] names, int[] starts, int[] ends, String prefix) {
+    this(names, starts, ends, prefix, null);
+  }
+
+  private JarIndex(byte[] names, int[] starts, int[] ends, String prefix, String classPath) {
+    this.names = names;
+    this.starts = starts;
+    this.ends = ends;
+    this.prefix = prefix;
+    this.classPath = classPath;
+  }
+
+  /**
+   * Build the index by reading the central directory of the jar file.
+   * <p>
+   * The manifest is read in place (via the central directory) for its Multi-Release and Class-Path attributes.
+   * </p>
+   */
+  static JarIndex read(Path jarFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(jarFile, StandardOpenOption.READ)) {
+      ZipCentralDirectory cen = ZipCentralDirectory.read(channel, 0, channel.size(), jarFile.toString());
+      JarIndex index = of(cen, jarFile.toString());
+      int entry = cen.indexOf(JarFile.MANIFEST_NAME);
+      if (entry == -1) {
+        return index;
+      }
+      Manifest manifest;
+      try (InputStream in = cen.openEntry(channel, entry)) {
+        manifest = new Manifest(in);
+      }
+      if (index.hasVersionedEntries()) {
+        index = index.forRelease(isMultiRelease(manifest));
+      }
+      String classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+      return classPath == null ? index : new JarIndex(index.names, index.starts, index.ends, index.prefix, classPath);
+    }
+  }
+
+  /**
+   * Build the index from the central directory of a jar.
+   */
+  static JarIndex of(ZipCentralDirectory cen, String jarName) {
+    return sorted(cen.names, cen.starts, cen.ends, warPrefix(jarName));
+  }
+
+  /**
+   * Build the index by reading all the entries of the jar file.
+   */
+  static JarIndex of(JarFile jarFile) {
+    List<String> names = new ArrayList<>();
+    Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      names.add(entries.nextElement().getName());
+    }
+    JarIndex index = of(names, jarFile.getName());
+    return index.hasVersionedEntries() ? index.forRelease(jarFile.isMultiRelease()) : index;
+  }
+
+  /**
+   * Return true if the manifest read from the stream declares a multi-release jar.
+   */
+  static boolean isMultiRelease(InputStream manifest) throws IOException {
+    try (InputStream in = manifest) {
+      return isMultiRelease(new Manifest(in));
+    }
+  }
+
+  private static boolean isMultiRelease(Manifest manifest) {
+    return "true".equalsIgnoreCase(manifest.getMainAttributes().getValue(Attributes.Name.MULTI_RELEASE));
+  }
+
+  /**
+   * Build the index from the entry names of a jar.
+   */
+  static JarIndex of(List<String> entryNames, String jarName) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    List<Integer> bounds = new ArrayList<>();
+    for (String entryName : entryNames) {
+      byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+      bounds.add(buffer.size());
+      buffer.write(name, 0, name.length);
+    }
+    int count = bounds.size();
+    int[] starts = new int[count];
+    int[] ends = new int[count];
+    for (int i = 0; i < count; i++) {
+      starts[i] = bounds.get(i);
+      ends[i] = i + 1 < count ? bounds.get(i + 1) : buffer.size();
+    }
+    return sorted(buffer.toByteArray(), starts, ends, warPrefix(jarName));
+  }
+
+  /**
+   * For Tomcat and non-expanded WARs.
+   */
+  private static String warPrefix(String fileName) {
+    return fileName.toLowerCase().endsWith(".war") ? "WEB-INF/classes/" : "";
+  }
+
+  private static JarIndex sorted(byte[] names, int[] starts, int[] ends, String prefix) {
+    int count = starts.length;
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(names, starts[a], ends[a], names, starts[b], ends[b]));
+    int[] sortedStarts = new int[count];
+    int[] sortedEnds = new int[count];
+    for (int i = 0; i < count; i++) {
+      sortedStarts[i] = starts[order[i]];
+      sortedEnds[i] = ends[order[i]];
+    }
+    return new JarIndex(names, sortedStarts, sortedEnds, prefix);
+  }
+
+  /**
+   * Return true if the jar has entries under <code>META-INF/versions/</code>.
+   */
+  boolean hasVersionedEntries() {
+    int entry = lowerBound(VERSIONS);
+    return entry < starts.length && startsWith(entry, VERSIONS);
+  }
+
+  /**
+   * Return the logical view for the running Java version when the jar has versioned entries and
+   * its manifest (read via the central directory) declares a multi-release jar.
+   *
+   * @param cen     The central directory of the jar.
+   * @param channel The channel of the file containing the jar.
+   */
+  JarIndex forRelease(ZipCentralDirectory cen, FileChannel channel) throws IOException {
+    if (!hasVersionedEntries()) {
+      return this;
+    }
+    int manifest = cen.indexOf(JarFile.MANIFEST_NAME);
+    return forRelease(manifest != -1 && isMultiRelease(cen.openEntry(channel, manifest)));
+  }
+
+  /**
+   * Return the logical view of a multi-release jar for the running Java version or this
+   * index when the jar is not multi-release.
+   */
+  JarIndex forRelease(boolean multiRelease) {
+    return multiRelease ? forRelease(RELEASE) : this;
+  }
+
+  /**
+   * Return the logical view of this multi-release jar for the given Java version.
+   * <p>
+   * Each versioned entry is named by its base name (the bytes following
+   * <code>META-INF/versions/NN/</code>) without copying the names. For each base name the
+   * entry of the highest version not greater than the release is kept and the entries of
+   * later versions are dropped.
+   * </p>
+   */
+  JarIndex forRelease(int release) {
+    int count = starts.length;
+    int[] logicalStarts = new int[count];
+    int[] logicalEnds = new int[count];
+    int[] versions = new int[count];
+    int kept = 0;
+    for (int i = 0; i < count; i++) {
+      int start = starts[i];
+      int version = 0;
+      if (startsWith(i, VERSIONS)) {
+        int pos = start + VERSIONS.length;
+        while (pos < ends[i] && names[pos] >= '0' && names[pos] <= '9' && version <= release) {
+          version = version * 10 + (names[pos++] - '0');
+        }
+        // skip the version directories themselves and the entries of other versions
+        if (pos + 1 >= ends[i] || names[pos] != '/' || version < MIN_VERSION || version > release) {
+          continue;
+        }
+        start = pos + 1;
+      }
+      logicalStarts[kept] = start;
+      logicalEnds[kept] = ends[i];
+      versions[kept++] = version;
+    }
+    Integer[] order = new Integer[kept];
+    for (int i = 0; i < kept; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> {
+      int compare = Arrays.compareUnsigned(names, logicalStarts[a], logicalEnds[a], names, logicalStarts[b], logicalEnds[b]);
+      return compare != 0 ? compare : Integer.compare(versions[b], versions[a]);
+    });
+    int[] sortedStarts = new int[kept];
+    int[] sortedEnds = new int[kept];
+    int size = 0;
+    for (int i = 0; i < kept; i++) {
+      int entry = order[i];
+      int start = logicalStarts[entry];
+      int end = logicalEnds[entry];
+      // the highest version of each name sorts first
+      if (size > 0 && Arrays.equals(names, sortedStarts[size - 1], sortedEnds[size - 1], names, start, end)) {
+        continue;
+      }
+      sortedStarts[size] = start;
+      sortedEnds[size++] = end;
+    }
+    return new JarIndex(names, Arrays.copyOf(sortedStarts, size), Arrays.copyOf(sortedEnds, size), prefix);
+  }
+
+  /**
+   * Return a view of this index for the directory of the jar with the given prefix
+   * (e.g. <code>BOOT-INF/classes/</code> of an executable jar).
+   */
+  JarIndex withPrefix(String prefix) {
+    return new JarIndex(names, starts, ends, prefix, classPath);
+  }
+
+  /**
+   * Return the Class-Path of the manifest of the jar (null when not declared or not read).
+   */
+  String classPath() {
+    return classPath;
+  }
+
+  /**
+   * Return the number of entries in the jar (in the logical view of a multi-release jar).
+   */
+  int size() {
+    return starts.length;
+  }
+
+  /**
+   * Finds all the resource names contained in this directory within the jar file.
+   *
+   * @param location The location to look under.
+   * @return The resource names.
+   */
+  Set<String> findResourceNames(String location) {
+    byte[] toScan = utf8(prefix + directory(location));
+    int prefixLength = prefix.length();
+    Set<String> resourceNames = new TreeSet<>();
+    for (int i = lowerBound(toScan); i < starts.length && startsWith(i, toScan); i++) {
+      resourceNames.add(decode(i, prefixLength));
+    }
+    return resourceNames;
+  }
+
+  /**
+   * Finds the resource names contained in this directory within the jar file that match the filter.
+   * <p>
+   * The range of entries searched is narrowed to the filter directory. Directory entries and
+   * entries not ending with the filter suffix are skipped on their bytes such that only the
+   * remaining candidates are decoded and matched.
+   * </p>
+   *
+   * @param location The location to look under.
+   * @param filter   The filter the resource names must match.
+   * @return The resource names.
+   */
+  Set<String> findResourceNames(String location, ResourceFilter filter) {
+    String locationPrefix = prefix + directory(location);
+    String directory = filter.directory();
+    byte[] toScan = utf8(directory == null ? locationPrefix : locationPrefix + directory + "/");
+    byte[] suffix = filter.suffix() == null ? null : utf8(filter.suffix());
+    int prefixLength = prefix.length();
+    int relativeStart = locationPrefix.length() - prefixLength;
+    Set<String> resourceNames = new TreeSet<>();
+    for (int i = lowerBound(toScan); i < starts.length && startsWith(i, toScan); i++) {
+      if (names[ends[i] - 1] != '/' && (suffix == null || endsWith(i, suffix))) {
+        String resourceName = decode(i, prefixLength);
+        if (ResourceFilterMatcher.matchesRelativeFrom(filter, resourceName, relativeStart)) {
+          resourceNames.add(resourceName);
+        }
+      }
+    }
+    return resourceNames;
+  }
+
+  /**
+   * Return the location as a directory prefix (empty for the root of the jar).
+   */
+  private static String directory(String location) {
+    return location.isEmpty() || location.endsWith("/") ? location : location + "/";
+  }
+
+  private String decode(int entry, int skip) {
+    int start = starts[entry] + skip;
+    return new String(names, start, ends[entry] - start, StandardCharsets.UTF_8);
+  }
+
+  private boolean startsWith(int entry, byte[] key) {
+    int start = starts[entry];
+    return ends[entry] - start >= key.length && Arrays.equals(names, start, start + key.length, key, 0, key.length);
+  }
+
+  private boolean endsWith(int entry, byte[] key) {
+    int end = ends[entry];
+    return end - starts[entry] >= key.length && Arrays.equals(names, end - key.length, end, key, 0, key.length);
+  }
+
+  /**
+   * Return the position of the first entry greater than or equal to the given key.
+   */
+  private int lowerBound(byte[] key) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (Arrays.compareUnsigned(names, starts[mid], ends[mid], key, 0, key.length) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private static byte[] utf8(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
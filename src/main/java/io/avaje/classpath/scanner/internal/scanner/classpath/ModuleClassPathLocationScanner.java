@@ -0,0 +1,157 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.core.CacheStats;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.internal.ScanCache;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.module.ModuleFinder;
+import java.lang.module.ModuleReader;
+import java.lang.module.ModuleReference;
+import java.lang.module.ResolvedModule;
+import java.net.URI;
+import java.net.URL;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ClassPathLocationScanner for the resources of named modules.
+ * <p>
+ * Handles <code>jrt:</code> URLs of the modules of a runtime image (including the application
+ * modules of a jlinked image) and the URLs of modules of the boot layer whose location is not
+ * a file or jar (e.g. a custom ModuleReader). The resources of each module are listed once via
+ * its ModuleReader and that listing is then shared by all the locations scanned in the module.
+ * </p>
+ */
+public class ModuleClassPathLocationScanner implements ClassPathLocationScanner {
+
+  /**
+   * Resource index keyed by the module location.
+   */
+  private final ScanCache<String, JarIndex> moduleIndexCache;
+
+  /**
+   * Create with an unbounded cache.
+   */
+  public ModuleClassPathLocationScanner() {
+    this(0);
+  }
+
+  /**
+   * Create caching the listings of at most the given number of modules (0 for unbounded).
+   */
+  public ModuleClassPathLocationScanner(int maxCachedModules) {
+    this.moduleIndexCache = new ScanCache<>(maxCachedModules);
+  }
+
+  /**
+   * Return true if this scanner supports URLs of the given protocol.
+   * <p>
+   * This is <code>jrt</code> and the schemes of the locations of the modules of the boot layer
+   * (other than <code>file</code> and <code>jar</code> which have their own scanners).
+   * </p>
+   */
+  static boolean supports(String protocol) {
+    if ("jrt".equals(protocol)) {
+      return true;
+    }
+    for (ResolvedModule module : ModuleLayer.boot().configuration().modules()) {
+      Optional<URI> location = module.reference().location();
+      if (location.isPresent() && protocol.equals(location.get().getScheme())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public Set<String> findResourceNames(String location, URL locationUrl) throws IOException {
+    return moduleIndex(locationUrl).findResourceNames(location);
+  }
+
+  @Override
+  public Set<String> findResourceNames(String location, URL locationUrl, ResourceFilter filter) throws IOException {
+    return moduleIndex(locationUrl).findResourceNames(location, filter);
+  }
+
+  @Override
+  public void trim() {
+    moduleIndexCache.clear();
+  }
+
+  @Override
+  public CacheStats cacheStats() {
+    return moduleIndexCache.stats();
+  }
+
+  /**
+   * Return the number of modules that have been listed.
+   */
+  int moduleIndexCount() {
+    return moduleIndexCache.size();
+  }
+
+  /**
+   * Return the resource index of the module containing this location URL listing it if required.
+   */
+  private JarIndex moduleIndex(URL locationUrl) throws IOException {
+    ModuleReference module = findModule(locationUrl);
+    if (module == null) {
+      throw new FileNotFoundException("No module found for " + locationUrl);
+    }
+    String key = module.location().map(URI::toString).orElse(module.descriptor().name());
+    return moduleIndexCache.get(key, name -> list(module));
+  }
+
+  private static JarIndex list(ModuleReference module) throws IOException {
+    try (ModuleReader reader = module.open(); Stream<String> names = reader.list()) {
+      List<String> resourceNames = names.collect(Collectors.toList());
+      return JarIndex.of(resourceNames, module.descriptor().name());
+    }
+  }
+
+  /**
+   * Return the module containing the location URL or null if there is no such module.
+   * <p>
+   * A <code>jrt:</code> URL names its module (<code>jrt:/module/path</code>) which is looked up in
+   * the boot layer and otherwise in the runtime image. Other URLs are matched against the
+   * locations of the modules of the boot layer.
+   * </p>
+   */
+  static ModuleReference findModule(URL locationUrl) {
+    if ("jrt".equals(locationUrl.getProtocol())) {
+      String path = locationUrl.getPath();
+      int end = path.indexOf('/', 1);
+      String name = end == -1 ? path.substring(1) : path.substring(1, end);
+      if (name.isEmpty()) {
+        return null;
+      }
+      return ModuleLayer.boot().configuration().findModule(name)
+        .map(ResolvedModule::reference)
+        .or(() -> ModuleFinder.ofSystem().find(name))
+        .orElse(null);
+    }
+    String url = locationUrl.toExternalForm();
+    for (ResolvedModule module : ModuleLayer.boot().configuration().modules()) {
+      Optional<URI> location = module.reference().location();
+      if (location.isPresent() && contains(location.get().toString(), url)) {
+        return module.reference();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Return true if the URL is the module location or a path within it.
+   */
+  private static boolean contains(String moduleLocation, String url) {
+    if (!url.startsWith(moduleLocation)) {
+      return false;
+    }
+    return url.length() == moduleLocation.length() || moduleLocation.endsWith("/") || url.charAt(moduleLocation.length()) == '/';
+  }
+}
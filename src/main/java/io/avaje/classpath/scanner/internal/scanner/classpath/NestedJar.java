@@ -0,0 +1,152 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.internal.UrlUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * An entry of a local jar that is itself used as a classpath root.
+ * <p>
+ * This is a jar nested in another jar (e.g. <code>jar:file:app.jar!/BOOT-INF/lib/lib.jar!/db/migration</code>)
+ * or a directory in a jar (e.g. <code>jar:file:app.jar!/BOOT-INF/classes!/db/migration</code>). The
+ * Spring Boot 3.2+ form <code>jar:nested:/app.jar/!BOOT-INF/lib/lib.jar!/db/migration</code> is also supported.
+ * </p>
+ */
+final class NestedJar {
+
+  private final File outerFile;
+
+  private final String entryName;
+
+  private NestedJar(File outerFile, String entryName) {
+    this.outerFile = outerFile;
+    this.entryName = entryName;
+  }
+
+  /**
+   * Return the nested jar of this location URL or null if the URL is not for a nested jar in a local file.
+   */
+  static NestedJar parse(URL locationUrl) throws IOException {
+    String file = locationUrl.getFile();
+    String outerUrl;
+    String entryName;
+    if (file.startsWith("nested:")) {
+      int entryStart = file.indexOf("/!");
+      int entryEnd = entryStart == -1 ? -1 : file.indexOf("!/", entryStart + 2);
+      if (entryEnd == -1) {
+        return null;
+      }
+      outerUrl = "file:" + file.substring("nested:".length(), entryStart);
+      entryName = file.substring(entryStart + 2, entryEnd);
+    } else {
+      int entryStart = file.indexOf("!/");
+      int entryEnd = entryStart == -1 ? -1 : file.indexOf("!/", entryStart + 2);
+      if (entryEnd == -1 || !file.startsWith("file:")) {
+        return null;
+      }
+      outerUrl = file.substring(0, entryStart);
+      entryName = file.substring(entryStart + 2, entryEnd);
+    }
+    File outerFile = new File(UrlUtils.toFilePath(new URL(outerUrl)));
+    if (!outerFile.isFile() || entryName.isEmpty()) {
+      return null;
+    }
+    if (entryName.endsWith("/")) {
+      entryName = entryName.substring(0, entryName.length() - 1);
+    }
+    return new NestedJar(outerFile.getCanonicalFile(), entryName);
+  }
+
+  /**
+   * Return the outer jar file.
+   */
+  File outerFile() {
+    return outerFile;
+  }
+
+  /**
+   * Return the name of the entry in the outer jar.
+   */
+  String entryName() {
+    return entryName;
+  }
+
+  /**
+   * Return true if the entry is a jar (rather than a directory of the outer jar).
+   */
+  boolean isJar() {
+    String lower = entryName.toLowerCase();
+    return lower.endsWith(".jar") || lower.endsWith(".zip");
+  }
+
+  /**
+   * Return the key identifying this nested jar.
+   */
+  String key() {
+    return outerFile.getPath() + "!/" + entryName;
+  }
+
+  /**
+   * Build the index of the nested jar.
+   * <p>
+   * A stored (uncompressed) nested jar has its central directory read in place from its byte
+   * range in the outer jar. A compressed nested jar is inflated and its entry names read as a
+   * stream. Neither is extracted to a temporary file.
+   * </p>
+   * <p>
+   * The manifest is only read when the nested jar has versioned entries to resolve a
+   * multi-release jar.
+   * </p>
+   *
+   * @param outer The central directory of the outer jar.
+   */
+  JarIndex readIndex(ZipCentralDirectory outer) throws IOException {
+    int entry = outer.indexOf(entryName);
+    if (entry == -1) {
+      throw new FileNotFoundException(entryName + " not found in " + outerFile);
+    }
+    if (outer.methods[entry] == 0) {
+      try (FileChannel channel = FileChannel.open(outerFile.toPath(), StandardOpenOption.READ)) {
+        long dataOffset = outer.dataOffset(channel, entry);
+        ZipCentralDirectory cen = ZipCentralDirectory.read(channel, dataOffset, outer.compressedSizes[entry], key());
+        return JarIndex.of(cen, entryName).forRelease(cen, channel);
+      }
+    }
+    try (ZipFile zipFile = new ZipFile(outerFile);
+         ZipInputStream in = new ZipInputStream(zipFile.getInputStream(zipFile.getEntry(entryName)))) {
+      List<String> names = new ArrayList<>();
+      boolean multiRelease = false;
+      ZipEntry zipEntry;
+      while ((zipEntry = in.getNextEntry()) != null) {
+        names.add(zipEntry.getName());
+        if (JarFile.MANIFEST_NAME.equals(zipEntry.getName())) {
+          multiRelease = JarIndex.isMultiRelease(new FilterInputStream(in) {
+            @Override
+            public void close() {
+              // leave the zip stream open for the following entries
+            }
+          });
+        }
+      }
+      JarIndex index = JarIndex.of(names, entryName);
+      return index.hasVersionedEntries() ? index.forRelease(multiRelease) : index;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return key();
+  }
+}
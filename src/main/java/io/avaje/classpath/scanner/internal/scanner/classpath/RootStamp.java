@@ -0,0 +1,109 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.net.URL;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+
+/**
+ * Fingerprint of a classpath root used to detect that it has changed since it was scanned.
+ * <p>
+ * A jar is stamped by its size and last modified time. A directory is stamped by the last
+ * modified time of each directory in the tree (which changes when entries are added, removed
+ * or renamed) and the size and last modified time of each file such that the stamp also
+ * covers the content of the class files the cached class indexes are built from.
+ * </p>
+ * <p>
+ * Stamping a directory walks the whole tree which reads the attributes of every file as well
+ * as every directory (files can not be told from directories without reading them). This costs
+ * about as much as scanning the directory so the scanner checks each root at most once per
+ * revalidate interval.
+ * </p>
+ */
+final class RootStamp {
+
+  private static final System.Logger log = ScanLog.log;
+
+  /**
+   * The stamp of roots that are not local files and can not be revalidated.
+   */
+  static final long NONE = 0;
+
+  private RootStamp() {
+  }
+
+  /**
+   * Return the stamp of the root of the resolved location URL.
+   */
+  static long of(URL resolvedUrl) {
+    try {
+      String protocol = resolvedUrl.getProtocol();
+      if ("file".equals(protocol)) {
+        return of(new File(UrlUtils.toFilePath(resolvedUrl)));
+      }
+      if ("jar".equals(protocol) || "zip".equals(protocol) || "wsjar".equals(protocol)) {
+        File jarFile = jarFile(resolvedUrl);
+        return jarFile == null ? NONE : of(jarFile);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.log(Level.DEBUG, "unable to stamp " + resolvedUrl, e);
+    }
+    return NONE;
+  }
+
+  private static File jarFile(URL locationUrl) throws IOException {
+    NestedJar nestedJar = NestedJar.parse(locationUrl);
+    if (nestedJar != null) {
+      return nestedJar.outerFile();
+    }
+    String urlFile = locationUrl.getFile();
+    int separatorIndex = urlFile.indexOf("!/");
+    if (separatorIndex == -1 || !urlFile.startsWith("file:")) {
+      return null;
+    }
+    return new File(UrlUtils.toFilePath(new URL(urlFile.substring(0, separatorIndex))));
+  }
+
+  private static long of(File file) throws IOException {
+    if (file.isFile()) {
+      return mix(mix(1, file.length()), file.lastModified());
+    }
+    if (!file.isDirectory()) {
+      return -1;
+    }
+    long[] stamp = {2};
+    Files.walkFileTree(file.toPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        stamp[0] = mix(mix(stamp[0], dir.hashCode()), attrs.lastModifiedTime().toMillis());
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+        stamp[0] = mix(mix(mix(stamp[0], path.hashCode()), attrs.size()), attrs.lastModifiedTime().toMillis());
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path path, IOException exc) {
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    return stamp[0];
+  }
+
+  private static long mix(long hash, long value) {
+    return hash * 0x100000001b3L ^ value;
+  }
+}
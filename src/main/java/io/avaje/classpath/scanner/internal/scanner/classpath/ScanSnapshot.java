@@ -0,0 +1,277 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persisted snapshot of the location URLs and resource names found by scanning.
+ * <p>
+ * The snapshot is keyed by a fingerprint of the classpath roots (path, size and last modified).
+ * When the fingerprint of the snapshot file does not match the current classpath the snapshot
+ * is ignored, the classpath is scanned and the snapshot file is rewritten.
+ * </p>
+ * <p>
+ * Directory roots are fingerprinted by their own size and last modified time only, so the
+ * snapshot is intended for classpaths that do not change between restarts (e.g. deployed jars).
+ * </p>
+ */
+final class ScanSnapshot {
+
+  private static final System.Logger log = ScanLog.log;
+
+  private static final int MAGIC = 0x41435053; // ACPS
+  private static final int VERSION = 1;
+
+  private final Path file;
+  private final long fingerprint;
+  private final Map<Location, List<URL>> locationUrls = new ConcurrentHashMap<>();
+  private final Map<String, CompactNames> resourceNames = new ConcurrentHashMap<>();
+  private final AtomicBoolean changed = new AtomicBoolean();
+  private volatile boolean released;
+
+  private ScanSnapshot(Path file, long fingerprint) {
+    this.file = file;
+    this.fingerprint = fingerprint;
+  }
+
+  /**
+   * Read the snapshot for the classpath of the given ClassLoader.
+   */
+  static ScanSnapshot read(Path file, ClassLoader classLoader) {
+    return read(file, fingerprint(classLoader));
+  }
+
+  /**
+   * Read the snapshot file returning an empty snapshot if the file does not exist,
+   * can not be read or was written for a different fingerprint.
+   */
+  static ScanSnapshot read(Path file, long fingerprint) {
+    ScanSnapshot snapshot = new ScanSnapshot(file, fingerprint);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        log.log(Level.DEBUG, "snapshot {0} has unsupported format and is ignored", file);
+      } else if (in.readLong() != fingerprint) {
+        log.log(Level.DEBUG, "snapshot {0} does not match the classpath and is ignored", file);
+      } else {
+        snapshot.readEntries(in);
+        log.log(Level.DEBUG, "snapshot {0} loaded with {1} locations", file, snapshot.locationUrls.size());
+      }
+    } catch (NoSuchFileException e) {
+      log.log(Level.DEBUG, "snapshot {0} does not exist yet", file);
+    } catch (IOException | RuntimeException e) {
+      log.log(Level.WARNING, "snapshot " + file + " could not be read and is ignored", e);
+      snapshot.locationUrls.clear();
+      snapshot.resourceNames.clear();
+    }
+    return snapshot;
+  }
+
+  private void readEntries(DataInputStream in) throws IOException {
+    int locationCount = in.readInt();
+    for (int i = 0; i < locationCount; i++) {
+      Location location = new Location(in.readUTF());
+      int urlCount = in.readInt();
+      List<URL> urls = new ArrayList<>(urlCount);
+      for (int j = 0; j < urlCount; j++) {
+        urls.add(new URL(in.readUTF()));
+      }
+      locationUrls.put(location, Collections.unmodifiableList(urls));
+    }
+    int rootCount = in.readInt();
+    for (int i = 0; i < rootCount; i++) {
+      String url = in.readUTF();
+      int nameCount = in.readInt();
+      List<String> names = new ArrayList<>(nameCount);
+      String previous = "";
+      for (int j = 0; j < nameCount; j++) {
+        // names are front coded sharing a prefix with the previous name
+        int shared = in.readUnsignedShort();
+        previous = previous.substring(0, shared) + in.readUTF();
+        names.add(previous);
+      }
+      resourceNames.put(url, CompactNames.of(names));
+    }
+  }
+
+  /**
+   * Return the snapshot location URLs or null if not in the snapshot.
+   */
+  List<URL> locationUrls(Location location) {
+    return locationUrls.get(location);
+  }
+
+  /**
+   * Return the snapshot resource names of the resolved location URL or null if not in the snapshot.
+   */
+  CompactNames resourceNames(URL resolvedUrl) {
+    return resourceNames.get(resolvedUrl.toExternalForm());
+  }
+
+  /**
+   * Record the location URLs found by scanning.
+   */
+  void putLocationUrls(Location location, List<URL> urls) {
+    if (released) {
+      return;
+    }
+    if (locationUrls.put(location, urls) == null) {
+      changed.set(true);
+    }
+  }
+
+  /**
+   * Record the resource names found by scanning.
+   */
+  void putResourceNames(URL resolvedUrl, CompactNames names) {
+    if (released) {
+      return;
+    }
+    CompactNames previous = resourceNames.put(resolvedUrl.toExternalForm(), names);
+    if (previous == null || !previous.equals(names)) {
+      changed.set(true);
+    }
+  }
+
+  /**
+   * Write any pending changes and release the entries held in memory.
+   * <p>
+   * The snapshot is not used or updated after it has been released.
+   * </p>
+   */
+  synchronized void release() {
+    writeIfChanged();
+    released = true;
+    locationUrls.clear();
+    resourceNames.clear();
+  }
+
+  /**
+   * Write the snapshot file if scanning has added entries since it was read or last written.
+   */
+  synchronized void writeIfChanged() {
+    if (!changed.getAndSet(false)) {
+      return;
+    }
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      Path tempFile = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        writeEntries(out);
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.log(Level.DEBUG, "snapshot {0} written with {1} locations", file, locationUrls.size());
+    } catch (IOException e) {
+      log.log(Level.WARNING, "snapshot " + file + " could not be written", e);
+    }
+  }
+
+  private void writeEntries(DataOutputStream out) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeLong(fingerprint);
+    Map<Location, List<URL>> locations = Map.copyOf(locationUrls);
+    out.writeInt(locations.size());
+    for (Map.Entry<Location, List<URL>> entry : locations.entrySet()) {
+      out.writeUTF(entry.getKey().descriptor());
+      out.writeInt(entry.getValue().size());
+      for (URL url : entry.getValue()) {
+        out.writeUTF(url.toExternalForm());
+      }
+    }
+    Map<String, CompactNames> roots = Map.copyOf(resourceNames);
+    out.writeInt(roots.size());
+    for (Map.Entry<String, CompactNames> entry : roots.entrySet()) {
+      out.writeUTF(entry.getKey());
+      out.writeInt(entry.getValue().size());
+      String previous = "";
+      for (String name : entry.getValue()) {
+        int shared = sharedPrefix(previous, name);
+        out.writeShort(shared);
+        out.writeUTF(name.substring(shared));
+        previous = name;
+      }
+    }
+  }
+
+  private static int sharedPrefix(String a, String b) {
+    int max = Math.min(Math.min(a.length(), b.length()), 0xFFFF);
+    int i = 0;
+    while (i < max && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Return the fingerprint of the classpath roots (path, size and last modified) of the ClassLoader.
+   */
+  static long fingerprint(ClassLoader classLoader) {
+    Set<String> roots = new LinkedHashSet<>();
+    String classPath = System.getProperty("java.class.path");
+    if (classPath != null) {
+      for (String entry : classPath.split(File.pathSeparator)) {
+        if (!entry.isEmpty()) {
+          roots.add(new File(entry).getAbsolutePath());
+        }
+      }
+    }
+    for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+      if (loader instanceof URLClassLoader) {
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+          if ("file".equals(url.getProtocol())) {
+            roots.add(UrlUtils.toFilePath(url));
+          }
+        }
+      }
+    }
+    long hash = 0xcbf29ce484222325L;
+    for (String root : roots) {
+      File file = new File(root);
+      hash = fnv(hash, root.getBytes(StandardCharsets.UTF_8));
+      hash = fnv(hash, file.length());
+      hash = fnv(hash, file.lastModified());
+    }
+    return hash;
+  }
+
+  private static long fnv(long hash, byte[] bytes) {
+    for (byte b : bytes) {
+      hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  private static long fnv(long hash, long value) {
+    for (int i = 0; i < 8; i++) {
+      hash = (hash ^ ((value >>> (i * 8)) & 0xFF)) * 0x100000001b3L;
+    }
+    return hash;
+  }
+}
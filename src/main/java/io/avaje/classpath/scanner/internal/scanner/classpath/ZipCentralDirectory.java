@@ -0,0 +1,331 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the entry names of a zip (jar) file directly from its central directory.
+ * <p>
+ * Only the end of the file and the central directory are read. Entry contents,
+ * comments and extra fields (other than ZIP64 sizes) are never read or decoded. ZIP64 archives are
+ * supported as well as archives with data prepended (e.g. executable jars with a launch script).
+ * </p>
+ * <p>
+ * The entry names are copied as raw UTF-8 bytes into one array such that they can be compared
+ * without decoding and the buffer holding the central directory released.
+ * </p>
+ * <p>
+ * The central directory can also be read from a region of a file which is used to read a jar
+ * stored uncompressed inside another jar in place.
+ * </p>
+ */
+final class ZipCentralDirectory {
+
+  private static final int EOCD_SIG = 0x06054b50;
+  private static final int EOCD_SIZE = 22;
+  private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+  private static final int ZIP64_EOCD_SIG = 0x06064b50;
+  private static final int CEN_SIG = 0x02014b50;
+  private static final int LOC_SIG = 0x04034b50;
+  private static final int CEN_HEADER_SIZE = 46;
+  private static final int LOC_HEADER_SIZE = 30;
+  private static final int MAX_COMMENT = 0xFFFF;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  /**
+   * The UTF-8 bytes of all the entry names.
+   */
+  final byte[] names;
+
+  /**
+   * The start offset into names for each entry.
+   */
+  final int[] starts;
+
+  /**
+   * The end offset (exclusive) into names for each entry.
+   */
+  final int[] ends;
+
+  /**
+   * The compression method of each entry (0 for stored).
+   */
+  final int[] methods;
+
+  /**
+   * The compressed size of each entry.
+   */
+  final long[] compressedSizes;
+
+  /**
+   * The position of the local header of each entry in the file.
+   */
+  final long[] localOffsets;
+
+  private ZipCentralDirectory(byte[] names, int[] starts, int[] ends, int[] methods, long[] compressedSizes, long[] localOffsets) {
+    this.names = names;
+    this.starts = starts;
+    this.ends = ends;
+    this.methods = methods;
+    this.compressedSizes = compressedSizes;
+    this.localOffsets = localOffsets;
+  }
+
+  /**
+   * Return the number of entries.
+   */
+  int size() {
+    return starts.length;
+  }
+
+  /**
+   * Return the index of the entry with the given name or -1 if there is no such entry.
+   */
+  int indexOf(String name) {
+    byte[] key = name.getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < starts.length; i++) {
+      if (Arrays.equals(names, starts[i], ends[i], key, 0, key.length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Return the position in the file of the content of the given entry (following its local header).
+   */
+  long dataOffset(FileChannel channel, int entry) throws IOException {
+    ByteBuffer header = readRegion(channel, localOffsets[entry], LOC_HEADER_SIZE);
+    if (header.getInt(0) != LOC_SIG) {
+      throw new ZipException("Invalid local header for entry " + entry);
+    }
+    int nameLength = Short.toUnsignedInt(header.getShort(26));
+    int extraLength = Short.toUnsignedInt(header.getShort(28));
+    return localOffsets[entry] + LOC_HEADER_SIZE + nameLength + extraLength;
+  }
+
+  /**
+   * Open the content of the given entry (a small entry such as the manifest as it is read and
+   * inflated into memory).
+   *
+   * @throws ZipException when the entry is neither stored nor deflated.
+   */
+  InputStream openEntry(FileChannel channel, int entry) throws IOException {
+    if (compressedSizes[entry] > Integer.MAX_VALUE) {
+      throw new ZipException("Entry " + entry + " too large");
+    }
+    byte[] content = readRegion(channel, dataOffset(channel, entry), compressedSizes[entry]).array();
+    switch (methods[entry]) {
+      case 0:
+        return new ByteArrayInputStream(content);
+      case 8:
+        Inflater inflater = new Inflater(true);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(content), inflater)) {
+          return new ByteArrayInputStream(in.readAllBytes());
+        } finally {
+          inflater.end();
+        }
+      default:
+        throw new ZipException("Unsupported compression method " + methods[entry] + " for entry " + entry);
+    }
+  }
+
+  /**
+   * Read the central directory of the given zip file.
+   *
+   * @throws ZipException when the file is not a zip file or the central directory is invalid.
+   */
+  static ZipCentralDirectory read(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return read(channel, 0, channel.size(), file.toString());
+    }
+  }
+
+  /**
+   * Read the central directory of the zip held in the given region of the file.
+   *
+   * @param channel The channel of the file.
+   * @param offset  The position of the start of the zip in the file.
+   * @param size    The size of the zip in bytes.
+   * @param source  The description of the zip used in error messages.
+   * @throws ZipException when the region is not a zip or the central directory is invalid.
+   */
+  static ZipCentralDirectory read(FileChannel channel, long offset, long size, String source) throws IOException {
+    if (size < EOCD_SIZE) {
+      throw new ZipException("Not a zip file " + source);
+    }
+    long tailStart = Math.max(0, size - EOCD_SIZE - MAX_COMMENT - ZIP64_LOCATOR_SIZE);
+    ByteBuffer tail = readRegion(channel, offset + tailStart, size - tailStart);
+    int eocd = findEndOfCentralDirectory(tail);
+    if (eocd == -1) {
+      throw new ZipException("End of central directory not found in " + source);
+    }
+    long entryCount = Short.toUnsignedInt(tail.getShort(eocd + 10));
+    long cenSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+    long cenOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+    long cenStart;
+    int locator = eocd - ZIP64_LOCATOR_SIZE;
+    if (locator >= 0 && tail.getInt(locator) == ZIP64_LOCATOR_SIG) {
+      long zip64Eocd = tail.getLong(locator + 8);
+      if (zip64Eocd < 0 || zip64Eocd + 56 > size) {
+        throw new ZipException("Invalid ZIP64 end of central directory in " + source);
+      }
+      ByteBuffer record = readRegion(channel, offset + zip64Eocd, 56);
+      if (record.getInt(0) != ZIP64_EOCD_SIG) {
+        throw new ZipException("Invalid ZIP64 end of central directory in " + source);
+      }
+      entryCount = record.getLong(32);
+      cenSize = record.getLong(40);
+      cenStart = record.getLong(48);
+      cenOffset = cenStart;
+    } else {
+      // support data prepended to the archive by locating the central directory relative to its end
+      cenStart = tailStart + eocd - cenSize;
+      if (cenStart < 0 || cenOffset > cenStart) {
+        throw new ZipException("Invalid central directory offset in " + source);
+      }
+    }
+    if (cenSize < 0 || cenSize > Integer.MAX_VALUE || entryCount < 0 || entryCount > Integer.MAX_VALUE || cenStart < 0 || cenStart + cenSize > size) {
+      throw new ZipException("Unsupported central directory size in " + source);
+    }
+    // local header offsets are relative to the start of the archive (after any prepended data)
+    long base = offset + cenStart - cenOffset;
+    return readEntries(readRegion(channel, offset + cenStart, cenSize), (int) entryCount, base, source);
+  }
+
+  /**
+   * Read the given region of the file into a heap buffer.
+   * <p>
+   * The regions read are small relative to the file and a heap buffer avoids the cost of
+   * creating and unmapping a mapping (and the mapping being held until garbage collected).
+   * </p>
+   */
+  private static ByteBuffer readRegion(FileChannel channel, long position, long size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) == -1) {
+        throw new EOFException("Unexpected end of file reading " + size + " bytes at " + position);
+      }
+    }
+    return buffer.flip();
+  }
+
+  /**
+   * Search backwards for the end of central directory record (which can be followed by a comment).
+   */
+  private static int findEndOfCentralDirectory(ByteBuffer tail) {
+    int limit = tail.limit();
+    for (int pos = limit - EOCD_SIZE; pos >= 0; pos--) {
+      if (tail.getInt(pos) == EOCD_SIG && pos + EOCD_SIZE + Short.toUnsignedInt(tail.getShort(pos + 20)) == limit) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  private static ZipCentralDirectory readEntries(ByteBuffer cen, int entryCount, long base, String source) throws ZipException {
+    int capacity = Math.min(entryCount, cen.limit() / CEN_HEADER_SIZE);
+    int[] starts = new int[capacity];
+    int[] ends = new int[capacity];
+    int[] methods = new int[capacity];
+    long[] compressedSizes = new long[capacity];
+    long[] localOffsets = new long[capacity];
+    // the names are typically less than half the central directory
+    byte[] names = new byte[Math.max(16, cen.limit() / 2)];
+    int nameEnd = 0;
+    int count = 0;
+    int pos = 0;
+    int limit = cen.limit();
+    while (pos + CEN_HEADER_SIZE <= limit && cen.getInt(pos) == CEN_SIG) {
+      int nameLength = Short.toUnsignedInt(cen.getShort(pos + 28));
+      int extraLength = Short.toUnsignedInt(cen.getShort(pos + 30));
+      int commentLength = Short.toUnsignedInt(cen.getShort(pos + 32));
+      int nameStart = pos + CEN_HEADER_SIZE;
+      if (nameStart + nameLength > limit) {
+        throw new ZipException("Invalid central directory entry in " + source);
+      }
+      if (count == starts.length) {
+        int newLength = count * 2 + 1;
+        starts = Arrays.copyOf(starts, newLength);
+        ends = Arrays.copyOf(ends, newLength);
+        methods = Arrays.copyOf(methods, newLength);
+        compressedSizes = Arrays.copyOf(compressedSizes, newLength);
+        localOffsets = Arrays.copyOf(localOffsets, newLength);
+      }
+      if (nameEnd + nameLength > names.length) {
+        names = Arrays.copyOf(names, Math.max(names.length * 2, nameEnd + nameLength));
+      }
+      cen.position(nameStart);
+      cen.get(names, nameEnd, nameLength);
+      methods[count] = Short.toUnsignedInt(cen.getShort(pos + 10));
+      long compressedSize = Integer.toUnsignedLong(cen.getInt(pos + 20));
+      long uncompressedSize = Integer.toUnsignedLong(cen.getInt(pos + 24));
+      long localOffset = Integer.toUnsignedLong(cen.getInt(pos + 42));
+      if (compressedSize == ZIP64_MAGIC || uncompressedSize == ZIP64_MAGIC || localOffset == ZIP64_MAGIC) {
+        // the actual values are in the ZIP64 extra field in this order when the header value is the magic
+        int extra = findExtra(cen, nameStart + nameLength, extraLength, ZIP64_EXTRA_ID);
+        if (extra != -1) {
+          int field = extra + 4;
+          if (uncompressedSize == ZIP64_MAGIC) {
+            field += 8;
+          }
+          if (compressedSize == ZIP64_MAGIC) {
+            compressedSize = cen.getLong(field);
+            field += 8;
+          }
+          if (localOffset == ZIP64_MAGIC) {
+            localOffset = cen.getLong(field);
+          }
+        }
+      }
+      compressedSizes[count] = compressedSize;
+      localOffsets[count] = base + localOffset;
+      starts[count] = nameEnd;
+      nameEnd += nameLength;
+      ends[count++] = nameEnd;
+      pos = nameStart + nameLength + extraLength + commentLength;
+    }
+    if (pos != limit) {
+      throw new ZipException("Invalid central directory entry in " + source);
+    }
+    // the entry count is not relied on as some tools truncate it for more than 65535 entries
+    if (count != starts.length) {
+      starts = Arrays.copyOf(starts, count);
+      ends = Arrays.copyOf(ends, count);
+      methods = Arrays.copyOf(methods, count);
+      compressedSizes = Arrays.copyOf(compressedSizes, count);
+      localOffsets = Arrays.copyOf(localOffsets, count);
+    }
+    return new ZipCentralDirectory(Arrays.copyOf(names, nameEnd), starts, ends, methods, compressedSizes, localOffsets);
+  }
+
+  /**
+   * Return the position of the extra field with the given id or -1 if not present.
+   */
+  private static int findExtra(ByteBuffer cen, int start, int length, int id) {
+    int pos = start;
+    int end = start + length;
+    while (pos + 4 <= end) {
+      int size = Short.toUnsignedInt(cen.getShort(pos + 2));
+      if (Short.toUnsignedInt(cen.getShort(pos)) == id) {
+        return pos;
+      }
+      pos += 4 + size;
+    }
+    return -1;
+  }
+}
@@ -20,12 +20,18 @@ import dalvik.system.DexFile;
 import dalvik.system.PathClassLoader;
 import io.avaje.classpath.scanner.Resource;
 import io.avaje.classpath.scanner.core.AndriodContextHolder;
+import io.avaje.classpath.scanner.core.ClassInfo;
+import io.avaje.classpath.scanner.core.ClassRef;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ScanListener;
+import io.avaje.classpath.scanner.internal.LazyClassRef;
 import io.avaje.classpath.scanner.internal.ResourceAndClassScanner;
+import io.avaje.classpath.scanner.internal.ScanOptions;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.function.Predicate;
@@ -63,6 +69,13 @@ public class AndroidScanner implements ResourceAndClassScanner {
   }
 
   public List<Class<?>> scanForClasses(Location location, Predicate<Class<?>> predicate) {
+    return scanForClasses(location, null, predicate);
+  }
+
+  /**
+   * Class files are not available with Android so the class filter is applied after the class is loaded.
+   */
+  public List<Class<?>> scanForClasses(Location location, Predicate<ClassInfo> classFilter, Predicate<Class<?>> predicate) {
     try {
       String pkg = location.path().replace("/", ".");
       List<Class<?>> classes = new ArrayList<>();
@@ -72,7 +85,7 @@ public class AndroidScanner implements ResourceAndClassScanner {
         String className = entries.nextElement();
         if (className.startsWith(pkg)) {
           Class<?> clazz = classLoader.loadClass(className);
-          if (predicate.test(clazz)) {
+          if ((classFilter == null || classFilter.test(new LoadedClassInfo(clazz))) && predicate.test(clazz)) {
             classes.add(clazz);
           }
         }
@@ -83,4 +96,26 @@ public class AndroidScanner implements ResourceAndClassScanner {
       throw new RuntimeException(e);
     }
   }
+
+  public List<ClassRef> scanForClassRefs(Location location) {
+    try {
+      String pkg = location.path().replace("/", ".");
+      List<ClassRef> refs = new ArrayList<>();
+      ScanListener listener = new ScanOptions().listener();
+      DexFile dex = new DexFile(context.getApplicationInfo().sourceDir);
+      Enumeration<String> entries = dex.entries();
+      while (entries.hasMoreElements()) {
+        String className = entries.nextElement();
+        if (className.startsWith(pkg)) {
+          String resourceName = className.replace('.', '/') + ".class";
+          refs.add(new LazyClassRef(className, resourceName, null, classLoader, listener));
+        }
+      }
+      refs.sort(Comparator.comparing(ClassRef::name));
+      return refs;
+
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
 }
@@ -0,0 +1,73 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath.android;
+
+import io.avaje.classpath.scanner.core.ClassInfo;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClassInfo adapting an already loaded class (as class files are not available on Android).
+ */
+final class LoadedClassInfo implements ClassInfo {
+
+  private final Class<?> type;
+
+  LoadedClassInfo(Class<?> type) {
+    this.type = type;
+  }
+
+  @Override
+  public String name() {
+    return type.getName();
+  }
+
+  @Override
+  public String superName() {
+    Class<?> superclass = type.getSuperclass();
+    return superclass == null ? null : superclass.getName();
+  }
+
+  @Override
+  public List<String> interfaces() {
+    List<String> names = new ArrayList<>();
+    for (Class<?> anInterface : type.getInterfaces()) {
+      names.add(anInterface.getName());
+    }
+    return names;
+  }
+
+  @Override
+  public List<String> annotations() {
+    List<String> names = new ArrayList<>();
+    for (Annotation annotation : type.getDeclaredAnnotations()) {
+      names.add(annotation.annotationType().getName());
+    }
+    return names;
+  }
+
+  @Override
+  public int accessFlags() {
+    return type.getModifiers();
+  }
+
+  @Override
+  public boolean isAnnotation() {
+    return type.isAnnotation();
+  }
+
+  @Override
+  public boolean isEnum() {
+    return type.isEnum();
+  }
+
+  @Override
+  public boolean isSynthetic() {
+    return type.isSynthetic();
+  }
+
+  @Override
+  public String toString() {
+    return name();
+  }
+}
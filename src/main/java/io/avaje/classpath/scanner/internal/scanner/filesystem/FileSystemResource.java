@@ -15,17 +15,20 @@
  */
 package io.avaje.classpath.scanner.internal.scanner.filesystem;
 
-import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ScannedResource;
 import io.avaje.classpath.scanner.internal.FileCopyUtils;
 
 import java.io.*;
+import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * A resource on the filesystem.
  */
-class FileSystemResource implements Resource {
+class FileSystemResource implements ScannedResource {
 
   private final File file;
 
@@ -48,6 +51,20 @@ class FileSystemResource implements Resource {
     return file.getName();
   }
 
+  @Override
+  public URL root() {
+    return null;
+  }
+
+  @Override
+  public byte[] loadAsBytes() {
+    try {
+      return Files.readAllBytes(file.toPath());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public InputStream inputStream() {
     try {
@@ -59,7 +76,12 @@ class FileSystemResource implements Resource {
 
   @Override
   public String loadAsString(Charset charset) {
-    return FileCopyUtils.copyToString(inputStream(), charset);
+    return FileCopyUtils.toString(loadAsBytes(), charset);
+  }
+
+  @Override
+  public Stream<String> lines(Charset charset) {
+    return FileCopyUtils.lines(inputStream(), charset);
   }
 
   @Override
@@ -17,12 +17,29 @@ package io.avaje.classpath.scanner.internal.scanner.filesystem;
 
 import io.avaje.classpath.scanner.Resource;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ResourceWatch;
+import io.avaje.classpath.scanner.core.ScanListener;
+import io.avaje.classpath.scanner.internal.ResourceFilterMatcher;
 import io.avaje.classpath.scanner.internal.ScanLog;
+import io.avaje.classpath.scanner.internal.ScanOptions;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.System.Logger.Level;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * FileSystem scanner.
@@ -31,6 +48,22 @@ public class FileSystemScanner {
 
   private static final System.Logger log = ScanLog.log;
 
+  private final ScanListener listener;
+
+  /**
+   * Create a FileSystem scanner.
+   */
+  public FileSystemScanner() {
+    this(new ScanOptions().listener());
+  }
+
+  /**
+   * Create a FileSystem scanner with a listener receiving scan events.
+   */
+  public FileSystemScanner(ScanListener listener) {
+    this.listener = listener;
+  }
+
   /**
    * Scans the FileSystem for resources under the specified location, starting with the specified prefix and ending with
    * the specified suffix.
@@ -46,47 +79,166 @@ public class FileSystemScanner {
       return Collections.emptyList();
     }
     List<Resource> resources = new ArrayList<>();
-    for (String resourceName : findResourceNames(path, predicate)) {
+    for (String resourceName : findResourceNames(location, dir, predicate)) {
+      resources.add(new FileSystemResource(resourceName));
+    }
+    return resources;
+  }
+
+  /**
+   * Scans the FileSystem for resources under the specified location matching the filter.
+   * <p>
+   * Directories that can not contain a match are not walked.
+   * </p>
+   *
+   * @param location The location in the filesystem to start searching. Subdirectories are also searched.
+   * @param filter   The filter used to match resources relative to the location.
+   * @return The resources that were found.
+   */
+  public List<Resource> scanForResources(Location location, ResourceFilter filter) {
+    File dir = new File(location.path());
+    if (!dir.isDirectory() || !dir.canRead()) {
+      return Collections.emptyList();
+    }
+    long start = System.nanoTime();
+    Set<String> resourceNames = findResourceNamesFromFileSystem(location.path(), dir, filter);
+    listener.rootScanned(location, toUrl(dir), "filesystem", resourceNames.size(), System.nanoTime() - start, false);
+    List<Resource> resources = new ArrayList<>(resourceNames.size());
+    for (String resourceName : resourceNames) {
       resources.add(new FileSystemResource(resourceName));
     }
     return resources;
   }
 
+  /**
+   * Start watching the location keeping an index of its resources up to date.
+   *
+   * @param location The location in the filesystem to watch. Subdirectories are also watched.
+   * @return The watch which should be closed when no longer used.
+   */
+  public ResourceWatch watch(Location location) {
+    File dir = new File(location.path());
+    if (!dir.isDirectory() || !dir.canRead()) {
+      throw new IllegalArgumentException("Unable to watch " + location + " as it is not a readable directory");
+    }
+    return FileSystemWatch.start(dir);
+  }
+
+  /**
+   * Streams the resources under the specified location in the FileSystem matching the predicate.
+   * <p>
+   * When not sorted the directory tree is walked lazily as the stream is consumed such that a
+   * short-circuiting stream operation stops walking early.
+   * </p>
+   *
+   * @param location  The location in the filesystem to start searching. Subdirectories are also searched.
+   * @param predicate The predicate used to match resources.
+   * @param sorted    True to return the resources sorted by name (requiring the full tree to be walked).
+   * @return The stream of resources.
+   */
+  public Stream<Resource> streamResources(Location location, Predicate<String> predicate, boolean sorted) {
+    if (sorted) {
+      return scanForResources(location, predicate).stream();
+    }
+    File dir = new File(location.path());
+    if (!dir.isDirectory() || !dir.canRead()) {
+      return Stream.empty();
+    }
+    Spliterator<Path> files = Spliterators.spliteratorUnknownSize(new FileTreeIterator(dir.toPath()), Spliterator.NONNULL);
+    return StreamSupport.stream(files, false)
+      .map(Path::toString)
+      .filter(predicate)
+      .map(FileSystemResource::new);
+  }
+
   /**
    * Finds the resources names present at this location and below on the classpath starting with this prefix and
    * ending with this suffix.
    */
-  private Set<String> findResourceNames(String path, Predicate<String> predicate) {
-    Set<String> resourceNames = findResourceNamesFromFileSystem(path, new File(path));
-    return filterResourceNames(resourceNames, predicate);
+  private Set<String> findResourceNames(Location location, File dir, Predicate<String> predicate) {
+    long start = System.nanoTime();
+    Set<String> resourceNames = findResourceNamesFromFileSystem(location.path(), dir);
+    listener.rootScanned(location, toUrl(dir), "filesystem", resourceNames.size(), System.nanoTime() - start, false);
+    Set<String> filtered = filterResourceNames(resourceNames, predicate);
+    listener.resourcesFiltered(location, resourceNames.size(), filtered.size());
+    return filtered;
+  }
+
+  private static URL toUrl(File dir) {
+    try {
+      return dir.toURI().toURL();
+    } catch (MalformedURLException e) {
+      throw new IllegalStateException("Can never happen", e);
+    }
   }
 
   /**
    * Finds all the resource names contained in this file system folder.
+   * <p>
+   * Walks the tree reading the attributes of each entry once and collecting into a single set.
+   * </p>
    *
    * @param scanRootLocation The root location of the scan on disk.
    * @param folder           The folder to look for resources under on disk.
    * @return The resource names;
    */
   Set<String> findResourceNamesFromFileSystem(String scanRootLocation, File folder) {
+    return findResourceNamesFromFileSystem(scanRootLocation, folder, null);
+  }
+
+  /**
+   * Finds the resource names contained in this file system folder that match the filter.
+   *
+   * @param scanRootLocation The root location of the scan on disk.
+   * @param folder           The folder to look for resources under on disk.
+   * @param filter           The filter to match or null to include all resources.
+   * @return The resource names;
+   */
+  Set<String> findResourceNamesFromFileSystem(String scanRootLocation, File folder, ResourceFilter filter) {
     log.log(Level.TRACE, "scan path: {0} ({1})", folder.getPath(), scanRootLocation);
     Set<String> resourceNames = new TreeSet<>();
+    if (!folder.isDirectory()) {
+      return resourceNames;
+    }
+    Path root = folder.toPath();
+    try {
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+          if (filter != null && !ResourceFilterMatcher.includeDirectory(filter, relativePath(root, dir))) {
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
 
-    File[] files = folder.listFiles();
-    if (files != null) {
-      for (File file : files) {
-        if (file.canRead()) {
-          if (file.isDirectory()) {
-            resourceNames.addAll(findResourceNamesFromFileSystem(scanRootLocation, file));
-          } else {
-            resourceNames.add(file.getPath());
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (!attrs.isDirectory() && (filter == null || ResourceFilterMatcher.matchesRelativeFrom(filter, relativePath(root, file), 0))) {
+            resourceNames.add(file.toString());
           }
+          return FileVisitResult.CONTINUE;
         }
-      }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          log.log(Level.TRACE, "skip unreadable path: {0} ({1})", file, exc);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
     return resourceNames;
   }
 
+  /**
+   * Return the path relative to the root using <code>/</code> as the separator.
+   */
+  private static String relativePath(Path root, Path path) {
+    String relative = root.relativize(path).toString();
+    return File.separatorChar == '/' ? relative : relative.replace(File.separatorChar, '/');
+  }
+
   /**
    * Filters this list of resource names to only include the ones whose filename matches this prefix and this suffix.
    */
@@ -0,0 +1,239 @@
+package io.avaje.classpath.scanner.internal.scanner.filesystem;
+
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ResourceWatch;
+import io.avaje.classpath.scanner.internal.ScanLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger.Level;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * Watch of a directory tree keeping the index of resource names up to date using a WatchService.
+ * <p>
+ * Each directory of the tree is registered with the WatchService. Created directories are walked
+ * and registered as they appear and when events overflow the tree is walked again and compared
+ * with the index.
+ * </p>
+ */
+final class FileSystemWatch implements ResourceWatch {
+
+  private static final System.Logger log = ScanLog.log;
+
+  private final Path root;
+
+  private final WatchService watchService;
+
+  private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+  private final NavigableSet<String> resourceNames = new ConcurrentSkipListSet<>();
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+  private final Thread thread;
+
+  private FileSystemWatch(Path root) throws IOException {
+    this.root = root;
+    this.watchService = root.getFileSystem().newWatchService();
+    this.thread = new Thread(this::run, "classpath-scanner-watch");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Start watching the given directory.
+   */
+  static FileSystemWatch start(File dir) {
+    try {
+      FileSystemWatch watch = new FileSystemWatch(dir.toPath());
+      watch.register(watch.root, false);
+      watch.thread.start();
+      return watch;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public List<Resource> resources(Predicate<String> predicate) {
+    List<Resource> resources = new ArrayList<>();
+    for (String resourceName : resourceNames) {
+      if (predicate.test(resourceName)) {
+        resources.add(new FileSystemResource(resourceName));
+      }
+    }
+    return resources;
+  }
+
+  @Override
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void close() {
+    try {
+      watchService.close();
+    } catch (IOException e) {
+      log.log(Level.DEBUG, "error closing watch of " + root, e);
+    }
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        Path dir = directories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            rescan();
+          } else if (dir != null) {
+            onEvent(event.kind(), dir.resolve((Path) event.context()));
+          }
+        }
+        if (!key.reset()) {
+          directories.remove(key);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ClosedWatchServiceException e) {
+      // closed
+    }
+  }
+
+  private void onEvent(WatchEvent.Kind<?> kind, Path path) {
+    try {
+      if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+        if (Files.isDirectory(path)) {
+          register(path, true);
+        } else {
+          added(path.toString());
+        }
+      } else if (kind == StandardWatchEventKinds.ENTRY_MODIFY) {
+        if (Files.isRegularFile(path)) {
+          String resourceName = path.toString();
+          fire(resourceNames.add(resourceName) ? Change.ADDED : Change.MODIFIED, resourceName);
+        }
+      } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+        deleted(path.toString());
+      }
+    } catch (IOException | UncheckedIOException e) {
+      log.log(Level.WARNING, "error processing change to " + path, e);
+    }
+  }
+
+  /**
+   * Walk the tree registering each directory and adding each file to the index.
+   */
+  private void register(Path start, boolean fireAdded) throws IOException {
+    Files.walkFileTree(start, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        directories.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (!attrs.isDirectory()) {
+          if (fireAdded) {
+            added(file.toString());
+          } else {
+            resourceNames.add(file.toString());
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        log.log(Level.TRACE, "skip unreadable path: {0} ({1})", file, exc);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void added(String resourceName) {
+    if (resourceNames.add(resourceName)) {
+      fire(Change.ADDED, resourceName);
+    }
+  }
+
+  /**
+   * Remove the deleted file or all the files under the deleted directory.
+   */
+  private void deleted(String path) {
+    if (resourceNames.remove(path)) {
+      fire(Change.DELETED, path);
+      return;
+    }
+    String dirPrefix = path + File.separatorChar;
+    for (String resourceName : resourceNames.subSet(dirPrefix, true, path + (char) (File.separatorChar + 1), false)) {
+      if (resourceNames.remove(resourceName)) {
+        fire(Change.DELETED, resourceName);
+      }
+    }
+  }
+
+  /**
+   * Events were lost so walk the tree again and compare with the index.
+   */
+  private void rescan() {
+    Set<String> current = new TreeSet<>(new FileSystemScanner().findResourceNamesFromFileSystem(root.toString(), root.toFile()));
+    for (String resourceName : resourceNames) {
+      if (!current.contains(resourceName)) {
+        resourceNames.remove(resourceName);
+        fire(Change.DELETED, resourceName);
+      }
+    }
+    for (String resourceName : current) {
+      added(resourceName);
+    }
+    try {
+      // directories created while events were lost are not registered yet
+      register(root, true);
+    } catch (IOException e) {
+      log.log(Level.WARNING, "error registering " + root + " after overflow", e);
+    }
+  }
+
+  private void fire(Change change, String resourceName) {
+    for (Listener listener : listeners) {
+      try {
+        listener.changed(change, resourceName);
+      } catch (RuntimeException e) {
+        log.log(Level.WARNING, "listener failed processing " + change + " of " + resourceName, e);
+      }
+    }
+  }
+}
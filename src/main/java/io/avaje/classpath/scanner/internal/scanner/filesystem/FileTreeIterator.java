@@ -0,0 +1,72 @@
+package io.avaje.classpath.scanner.internal.scanner.filesystem;
+
+import io.avaje.classpath.scanner.internal.ScanLog;
+
+import java.io.IOException;
+import java.lang.System.Logger.Level;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Iterates the files of a directory tree lazily, listing each directory only when
+ * the files of the previously listed directories have been consumed.
+ * <p>
+ * Symbolic links are followed with directories already visited being skipped.
+ * Directories that can not be read are skipped.
+ * </p>
+ */
+final class FileTreeIterator implements Iterator<Path> {
+
+  private static final System.Logger log = ScanLog.log;
+
+  private final Deque<Path> directories = new ArrayDeque<>();
+  private final Deque<Path> files = new ArrayDeque<>();
+  private final Set<Object> visited = new HashSet<>();
+
+  FileTreeIterator(Path start) {
+    directories.push(start);
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (files.isEmpty() && !directories.isEmpty()) {
+      list(directories.pop());
+    }
+    return !files.isEmpty();
+  }
+
+  @Override
+  public Path next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return files.poll();
+  }
+
+  private void list(Path dir) {
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        try {
+          BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+          if (!attrs.isDirectory()) {
+            files.add(entry);
+          } else if (attrs.fileKey() == null || visited.add(attrs.fileKey())) {
+            directories.push(entry);
+          }
+        } catch (IOException e) {
+          log.log(Level.TRACE, "skip unreadable path: {0} ({1})", entry, e);
+        }
+      }
+    } catch (IOException e) {
+      log.log(Level.TRACE, "skip unreadable path: {0} ({1})", dir, e);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.ClassInfo;
+import org.example.annotated.MarkedController;
+import org.example.annotated.MarkedMigration;
+import org.example.annotated.Marker;
+import org.example.annotated.Unmarked;
+import org.example.dummy.DummyAbstractJdbcMigration;
+import org.example.dummy.Version3dot5;
+import org.example.thing.SomeTestInterface;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassFileReaderTest {
+
+  private ClassInfo read(Class<?> type) {
+    InputStream inputStream = type.getResourceAsStream(type.getName().substring(type.getName().lastIndexOf('.') + 1) + ".class");
+    return ClassFileReader.read(inputStream);
+  }
+
+  @Test
+  public void read_concreteClass() {
+    ClassInfo info = read(Version3dot5.class);
+
+    assertEquals("org.example.dummy.Version3dot5", info.name());
+    assertEquals(DummyAbstractJdbcMigration.class.getName(), info.superName());
+    assertEquals(List.of(SomeTestInterface.class.getName()), info.interfaces());
+    assertTrue(info.isPublic());
+    assertTrue(info.isConcrete());
+  }
+
+  @Test
+  public void read_abstractClass() {
+    ClassInfo info = read(DummyAbstractJdbcMigration.class);
+
+    assertTrue(info.isAbstract());
+    assertFalse(info.isInterface());
+    assertFalse(info.isConcrete());
+    assertEquals("java.lang.Object", info.superName());
+  }
+
+  @Test
+  public void read_interfaceAndAnnotation() {
+    ClassInfo info = read(SomeTestInterface.class);
+    assertTrue(info.isInterface());
+    assertTrue(info.isAbstract());
+    assertTrue(info.interfaces().isEmpty());
+
+    ClassInfo annotation = read(Test.class);
+    assertTrue(annotation.isAnnotation());
+    assertEquals(List.of("java.lang.annotation.Annotation"), annotation.interfaces());
+  }
+
+  @Test
+  public void read_annotations() {
+    assertEquals(List.of("java.lang.Deprecated", Marker.class.getName()), read(MarkedController.class).annotations());
+    assertEquals(List.of(Marker.class.getName()), read(MarkedMigration.class).annotations());
+    assertTrue(read(Unmarked.class).annotations().isEmpty());
+    assertEquals(List.of("java.lang.annotation.Retention", "java.lang.annotation.Target"), read(Marker.class).annotations());
+  }
+
+  @Test
+  public void read_objectAndEnum() {
+    assertNull(read(Object.class).superName());
+    assertTrue(read(Thread.State.class).isEnum());
+  }
+
+  @Test
+  public void read_invalid() {
+    assertThrows(IllegalArgumentException.class, () -> ClassFileReader.read(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}));
+  }
+
+  @Test
+  public void read_modifiedUtf8Names() throws IOException {
+    // a supplementary character (two surrogates) and NUL are encoded differently to standard UTF-8
+    String name = "org.example.Caf\u00e9\ud83d\ude00\u0000";
+    ClassInfo info = ClassFileReader.read(classFile(name.replace('.', '/'), "java/lang/Object"));
+    assertEquals(name, info.name());
+    assertEquals("java.lang.Object", info.superName());
+  }
+
+  /**
+   * Return a minimal class file (names written in modified UTF-8 by DataOutputStream.writeUTF).
+   */
+  private static byte[] classFile(String name, String superName) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(52);
+      out.writeShort(5);
+      out.writeByte(1);
+      out.writeUTF(name);
+      out.writeByte(7);
+      out.writeShort(1);
+      out.writeByte(1);
+      out.writeUTF(superName);
+      out.writeByte(7);
+      out.writeShort(3);
+      out.writeShort(0x0021);
+      out.writeShort(2);
+      out.writeShort(4);
+      // interfaces, fields, methods and attributes
+      out.writeShort(0);
+      out.writeShort(0);
+      out.writeShort(0);
+      out.writeShort(0);
+    }
+    return bytes.toByteArray();
+  }
+}
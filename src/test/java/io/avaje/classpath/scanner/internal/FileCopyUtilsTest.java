@@ -0,0 +1,76 @@
+package io.avaje.classpath.scanner.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileCopyUtilsTest {
+
+  private static final byte[] WITH_BOM = "\ufeffcreate table été;\nselect 1;\n".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void toString_stripsBom() {
+    assertEquals("create table été;\nselect 1;\n", FileCopyUtils.toString(WITH_BOM, StandardCharsets.UTF_8));
+    assertEquals("abc", FileCopyUtils.toString("\ufeffabc".getBytes(StandardCharsets.UTF_16LE), StandardCharsets.UTF_16LE));
+    assertEquals("", FileCopyUtils.toString(new byte[0], StandardCharsets.UTF_8));
+    for (Charset charset : List.of(StandardCharsets.UTF_16, StandardCharsets.UTF_16BE, Charset.forName("UTF-32"), Charset.forName("UTF-32LE"))) {
+      assertEquals("abc", FileCopyUtils.toString("\ufeffabc".getBytes(charset), charset), charset.name());
+      assertEquals("abc", FileCopyUtils.toString("abc".getBytes(charset), charset), charset.name());
+    }
+    assertEquals("\u00e9", FileCopyUtils.toString("\u00e9".getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  public void copyToString_reader_stripsBom() {
+    assertEquals("abc", FileCopyUtils.copyToString(new StringReader("\ufeffabc")));
+    assertEquals("abc", FileCopyUtils.copyToString(new StringReader("abc")));
+    assertEquals("", FileCopyUtils.copyToString(new StringReader("\ufeff")));
+  }
+
+  @Test
+  public void copyToString_closesStream() {
+    TrackedStream in = new TrackedStream(WITH_BOM);
+    assertEquals("create table été;\nselect 1;\n", FileCopyUtils.copyToString(in, StandardCharsets.UTF_8));
+    assertTrue(in.closed.get());
+  }
+
+  @Test
+  public void readLines_stripsBomAndClosesStream() {
+    TrackedStream in = new TrackedStream(WITH_BOM);
+    assertEquals(List.of("create table été;", "select 1;"), FileCopyUtils.readLines(in, StandardCharsets.UTF_8));
+    assertTrue(in.closed.get());
+  }
+
+  @Test
+  public void lines_lazyAndClosedWithStream() {
+    TrackedStream in = new TrackedStream(WITH_BOM);
+    try (Stream<String> lines = FileCopyUtils.lines(in, StandardCharsets.UTF_8)) {
+      assertFalse(in.closed.get());
+      assertEquals(List.of("create table été;", "select 1;"), lines.collect(Collectors.toList()));
+    }
+    assertTrue(in.closed.get());
+  }
+
+  private static final class TrackedStream extends ByteArrayInputStream {
+
+    final AtomicBoolean closed = new AtomicBoolean();
+
+    TrackedStream(byte[] content) {
+      super(content);
+    }
+
+    @Override
+    public void close() {
+      closed.set(true);
+    }
+  }
+}
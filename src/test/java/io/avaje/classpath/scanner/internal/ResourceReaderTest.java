@@ -0,0 +1,87 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ScannedResource;
+import io.avaje.classpath.scanner.internal.scanner.classpath.ClassPathScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceReaderTest {
+
+  @Test
+  public void read_keepsJarOpenUntilChanged(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("app.jar");
+    writeJar(jar, "one");
+    URL root = new URL("jar:" + jar.toUri() + "!/");
+
+    ResourceReader reader = new ResourceReader();
+    assertEquals("one", read(reader, root));
+    try (InputStream in = reader.open(root, "db/V1.sql")) {
+      assertEquals("one", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    writeJar(jar, "second");
+    Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+    assertEquals("second", read(reader, root));
+
+    reader.release();
+    assertEquals("second", read(reader, root));
+    reader.close();
+    assertEquals("second", read(reader, root));
+    try (InputStream in = reader.open(root, "db/V1.sql")) {
+      assertEquals("second", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+    assertThrows(IOException.class, () -> reader.read(root, "db/missing.sql"));
+  }
+
+  @Test
+  public void readAll_usesOpenJars(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("app.jar");
+    writeJar(jar, "one");
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+      List<Resource> resources = new ClassPathScanner(loader, new ScanOptions().enumerateRoots(true)).scanForResources(new Location("db"), name -> true);
+      Map<String, String> read = new LinkedHashMap<>();
+
+      ResourceReader reader = new ResourceReader();
+      reader.readAll(resources, (resource, content) -> read.put(resource.location(), new String(content, StandardCharsets.UTF_8)));
+      assertEquals(Map.of("db/V1.sql", "one"), read);
+      assertEquals(1, reader.openJarCount());
+      assertEquals("one", read(reader, ((ScannedResource) resources.get(0)).root()));
+      assertEquals(1, reader.openJarCount());
+
+      reader.close();
+      read.clear();
+      reader.readAll(resources, (resource, content) -> read.put(resource.location(), new String(content, StandardCharsets.UTF_8)));
+      assertEquals(Map.of("db/V1.sql", "one"), read);
+      assertEquals(0, reader.openJarCount());
+    }
+  }
+
+  private static String read(ResourceReader reader, URL root) throws IOException {
+    return new String(reader.read(root, "db/V1.sql"), StandardCharsets.UTF_8);
+  }
+
+  private static void writeJar(Path jar, String content) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      zip.putNextEntry(new ZipEntry("db/V1.sql"));
+      zip.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package io.avaje.classpath.scanner.internal;
+
+import io.avaje.classpath.scanner.core.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanCacheTest {
+
+  @Test
+  public void get_concurrentCallers_loadOnce() throws Exception {
+    ScanCache<String, String> cache = new ScanCache<>();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> cache.get("key", key -> {
+          loads.incrementAndGet();
+          loading.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          return key + "-value";
+        })));
+      }
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+      release.countDown();
+      for (Future<String> result : results) {
+        assertEquals("key-value", result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void get_failedLoad_notCached() throws Exception {
+    ScanCache<String, String> cache = new ScanCache<>();
+
+    assertThrows(IOException.class, () -> cache.get("key", key -> {
+      throw new IOException("fail");
+    }));
+    assertEquals(0, cache.size());
+    assertEquals("ok", cache.get("key", key -> "ok"));
+  }
+
+  @Test
+  public void get_maxSize_evictsLeastRecentlyUsed() throws Exception {
+    ScanCache<String, String> cache = new ScanCache<>(2);
+    cache.get("a", key -> key);
+    cache.get("b", key -> key);
+    // a is now more recently used than b
+    cache.get("a", key -> "reloaded");
+    cache.get("c", key -> key);
+
+    assertEquals(2, cache.size());
+    assertEquals("a", cache.getIfPresent("a"));
+    assertNull(cache.getIfPresent("b"));
+    assertEquals("c", cache.getIfPresent("c"));
+
+    CacheStats stats = cache.stats();
+    assertEquals(3, stats.missCount());
+    assertEquals(3, stats.hitCount());
+    assertEquals(1, stats.evictionCount());
+    assertEquals(2, stats.size());
+  }
+}
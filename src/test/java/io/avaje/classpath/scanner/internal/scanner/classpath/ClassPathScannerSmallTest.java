@@ -2,6 +2,7 @@ package io.avaje.classpath.scanner.internal.scanner.classpath;
 
 import io.avaje.classpath.scanner.FilterResource;
 import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ClassInfo;
 import io.avaje.classpath.scanner.core.Location;
 import org.example.dummy.DummyAbstractJdbcMigration;
 import org.example.dummy.V4__DummyExtendedAbstractJdbcMigration;
@@ -133,6 +134,18 @@ public class ClassPathScannerSmallTest {
     return someAssignable::isAssignableFrom;
   }
 
+  @Test
+  public void scanForClassesWithClassFilter() {
+
+    Predicate<Class<?>> predicate = getMatchClass(SomeTestInterface.class);
+
+    List<Class<?>> classes = classPathScanner.scanForClasses(new Location("classpath:org/example/dummy"), ClassInfo::isConcrete, predicate);
+
+    assertEquals(2, classes.size());
+    assertEquals(V4__DummyExtendedAbstractJdbcMigration.class, classes.get(0));
+    assertEquals(Version3dot5.class, classes.get(1));
+  }
+
   @Test
   public void scanForClassesSplitPackage() {
 
@@ -0,0 +1,70 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactNamesTest {
+
+  @Test
+  public void of_sameAsTreeSet() {
+    Set<String> expected = new TreeSet<>();
+    for (int i = 0; i < 200; i++) {
+      expected.add("db/migration/v" + (i % 7) + "/V" + i + "__change.sql");
+      expected.add("org/example/pkg" + (i % 3) + "/Class" + i + ".class");
+    }
+    expected.add("db/migration/été.sql");
+
+    CompactNames names = CompactNames.of(new ArrayList<>(expected));
+    assertEquals(expected.size(), names.size());
+    assertEquals(expected, new TreeSet<>(names));
+    assertEquals(expected, names);
+    assertTrue(names.contains("org/example/pkg1/Class4.class"));
+    assertTrue(names.contains("db/migration/été.sql"));
+    assertFalse(names.contains("org/example/pkg1/Class5.class"));
+    assertFalse(names.contains("org/example"));
+  }
+
+  @Test
+  public void of_sortedAndDistinct() {
+    CompactNames names = CompactNames.of(List.of("b/Two", "a/One", "b/Two", "a/"));
+    assertEquals(List.of("a/", "a/One", "b/Two"), new ArrayList<>(names));
+  }
+
+  @Test
+  public void withPrefix() {
+    Set<String> all = new TreeSet<>();
+    for (int i = 0; i < 100; i++) {
+      all.add("a/b" + (i % 4) + "/Name" + i);
+    }
+    CompactNames names = CompactNames.of(all);
+
+    CompactNames b2 = names.withPrefix("a/b2/");
+    assertEquals(25, b2.size());
+    for (String name : b2) {
+      assertTrue(name.startsWith("a/b2/"));
+    }
+    assertEquals(3, b2.withPrefix("a/b2/Name1").size());
+    assertTrue(b2.contains("a/b2/Name2"));
+    assertFalse(b2.contains("a/b1/Name1"));
+    assertEquals(100, names.withPrefix("a/").size());
+    assertTrue(names.withPrefix("c/").isEmpty());
+    assertTrue(names.withPrefix("0").isEmpty());
+    assertTrue(CompactNames.EMPTY.withPrefix("a/").isEmpty());
+  }
+
+  @Test
+  public void withPrefix_rangeEndWithinBucket() {
+    CompactNames names = CompactNames.of(List.of("a/b", "a/b/x", "a/b0", "a/b/y", "a/c", "a/\u00e9/x", "a/\u00e9\u00e9", "a/\u00ea", "a/\u00e9/y"));
+    assertEquals(List.of("a/b/x", "a/b/y"), List.copyOf(names.withPrefix("a/b/")));
+    assertEquals(List.of("a/b", "a/b/x", "a/b/y", "a/b0"), List.copyOf(names.withPrefix("a/b")));
+    assertEquals(List.of("a/\u00e9/x", "a/\u00e9/y", "a/\u00e9\u00e9"), List.copyOf(names.withPrefix("a/\u00e9")));
+    assertEquals(List.of("a/\u00ea"), List.copyOf(names.withPrefix("a/\u00ea")));
+    assertTrue(names.withPrefix("a/d").isEmpty());
+  }
+}
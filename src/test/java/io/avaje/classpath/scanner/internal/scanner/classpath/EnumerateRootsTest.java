@@ -0,0 +1,119 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ScannedResource;
+import io.avaje.classpath.scanner.internal.ScanOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for answering locations from the discovered classpath roots.
+ */
+public class EnumerateRootsTest {
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  @Test
+  public void sameAsGetResources() {
+    ClassPathScanner probing = new ClassPathScanner(classLoader);
+    ClassPathScanner enumerating = new ClassPathScanner(classLoader, new ScanOptions().enumerateRoots(true));
+
+    for (String path : List.of("migration/sql", "org/junit/jupiter/api", "org/example")) {
+      Location location = new Location(path);
+      assertEquals(locations(probing.scanForResources(location, name -> true)), locations(enumerating.scanForResources(location, name -> true)), path);
+      ResourceFilter filter = ResourceFilter.bySuffix(".class");
+      assertEquals(locations(probing.scanForResources(location, filter)), locations(enumerating.scanForResources(location, filter)), path);
+    }
+    assertEquals(probing.scanForClasses(new Location("org/example"), type -> true), enumerating.scanForClasses(new Location("org/example"), type -> true));
+  }
+
+  @Test
+  public void jarWithoutDirectoryEntries(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("nodirs.jar");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+      zip.putNextEntry(new ZipEntry("nodirs/db/V1__init.sql"));
+      zip.write("create table a;".getBytes(StandardCharsets.UTF_8));
+      zip.putNextEntry(new ZipEntry("nodirs/db/V2__next.sql"));
+    }
+    AtomicInteger probes = new AtomicInteger();
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, classLoader) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        probes.incrementAndGet();
+        return super.getResources(name);
+      }
+    }) {
+      Location location = new Location("nodirs/db");
+      assertTrue(new ClassPathScanner(loader).scanForResources(location, name -> true).isEmpty());
+      probes.set(0);
+
+      ClassPathScanner enumerating = new ClassPathScanner(loader, new ScanOptions().enumerateRoots(true));
+      List<Resource> resources = enumerating.scanForResources(location, name -> true);
+      assertEquals(List.of("nodirs/db/V1__init.sql", "nodirs/db/V2__next.sql"), locations(resources));
+      assertEquals("create table a;", resources.get(0).loadAsString(StandardCharsets.UTF_8));
+      assertEquals(1, enumerating.scanForResources(location, ResourceFilter.byGlob("V1__*.sql")).size());
+      assertEquals(0, probes.get());
+    }
+  }
+
+  @Test
+  public void manifestClassPathFollowsDeclaringJar(@TempDir Path dir) throws IOException {
+    writeJar(dir.resolve("a.jar"), "c.jar", "a/A.txt");
+    writeJar(dir.resolve("b.jar"), null, "shared/x.txt");
+    writeJar(dir.resolve("c.jar"), null, "shared/x.txt");
+    URL[] urls = {dir.resolve("a.jar").toUri().toURL(), dir.resolve("b.jar").toUri().toURL()};
+    try (URLClassLoader loader = new URLClassLoader(urls, classLoader)) {
+      List<String> roots = ClassPathRoots.discover(loader, new JarFileClassPathLocationScanner()).stream()
+        .map(URL::toExternalForm)
+        .filter(url -> url.contains(dir.toUri().getPath()))
+        .map(url -> url.substring(url.lastIndexOf('/', url.length() - 3) + 1))
+        .collect(Collectors.toList());
+      assertEquals(List.of("a.jar!/", "c.jar!/", "b.jar!/"), roots);
+
+      // the resource is read from the same jar as the ClassLoader finds it in
+      ClassPathScanner enumerating = new ClassPathScanner(loader, new ScanOptions().enumerateRoots(true));
+      List<Resource> resources = enumerating.scanForResources(new Location("shared"), name -> true);
+      assertEquals(1, resources.size());
+      assertEquals("c.jar", resources.get(0).loadAsString(StandardCharsets.UTF_8));
+      assertEquals(loader.getResource("shared/x.txt").toExternalForm(), ((ScannedResource) resources.get(0)).root() + "shared/x.txt");
+    }
+  }
+
+  private static void writeJar(Path jar, String classPath, String... names) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (classPath != null) {
+      manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath);
+    }
+    try (JarOutputStream zip = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+      for (String name : names) {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(jar.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private static List<String> locations(List<Resource> resources) {
+    return resources.stream().map(Resource::location).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,137 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.internal.ResourceReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for JarFileClassPathLocationScanner.
+ */
+public class JarFileClassPathLocationScannerTest {
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  @Test
+  public void findResourceNames_sharesJarIndexAcrossLocations() throws Exception {
+    JarFileClassPathLocationScanner scanner = new JarFileClassPathLocationScanner();
+
+    URL apiUrl = classLoader.getResource("org/junit/jupiter/api");
+    URL extensionUrl = classLoader.getResource("org/junit/jupiter/api/extension");
+    assertEquals("jar", apiUrl.getProtocol());
+
+    Set<String> api = scanner.findResourceNames("org/junit/jupiter/api", apiUrl);
+    Set<String> extension = scanner.findResourceNames("org/junit/jupiter/api/extension", extensionUrl);
+
+    assertEquals(1, scanner.jarIndexCount());
+    assertTrue(api.contains("org/junit/jupiter/api/AfterAll.class"));
+    assertTrue(api.containsAll(extension));
+    assertTrue(extension.contains("org/junit/jupiter/api/extension/AfterAllCallback.class"));
+    for (String name : extension) {
+      assertTrue(name.startsWith("org/junit/jupiter/api/extension/"));
+    }
+  }
+
+  @Test
+  public void findResourceNames_doesNotMatchSiblingWithSamePrefix() throws Exception {
+    JarFileClassPathLocationScanner scanner = new JarFileClassPathLocationScanner();
+
+    URL url = classLoader.getResource("org/junit/jupiter/api/condition");
+    Set<String> names = scanner.findResourceNames("org/junit/jupiter/api/condition", url);
+
+    assertFalse(names.isEmpty());
+    for (String name : names) {
+      assertTrue(name.startsWith("org/junit/jupiter/api/condition/"));
+    }
+  }
+
+  @Test
+  public void findResourceNames_multiReleaseJar(@TempDir Path dir) throws Exception {
+    Path jar = dir.resolve("multi.jar");
+    try (OutputStream out = Files.newOutputStream(jar)) {
+      out.write(multiReleaseJar(true));
+    }
+    Path plain = dir.resolve("plain.jar");
+    try (OutputStream out = Files.newOutputStream(plain)) {
+      out.write(multiReleaseJar(false));
+    }
+    Path app = dir.resolve("app.jar");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(app))) {
+      zip.putNextEntry(new ZipEntry("BOOT-INF/lib/multi.jar"));
+      zip.write(multiReleaseJar(true));
+      byte[] stored = multiReleaseJar(true);
+      ZipEntry entry = new ZipEntry("BOOT-INF/lib/stored.jar");
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(stored.length);
+      CRC32 crc = new CRC32();
+      crc.update(stored);
+      entry.setCrc(crc.getValue());
+      zip.putNextEntry(entry);
+      zip.write(stored);
+    }
+    JarFileClassPathLocationScanner scanner = new JarFileClassPathLocationScanner();
+    Set<String> expected = Set.of("a/Base.class", "a/Both.class", "a/Eleven.class");
+
+    URL root = new URL("jar:" + jar.toUri() + "!/");
+    assertEquals(expected, scanner.findResourceNames("a", new URL(root, "a")));
+    try (ResourceReader reader = new ResourceReader()) {
+      assertEquals("11", new String(reader.read(root, "a/Both.class"), StandardCharsets.UTF_8));
+      assertEquals("base", new String(reader.read(root, "a/Base.class"), StandardCharsets.UTF_8));
+    }
+
+    URL nested = new URL("jar:" + app.toUri() + "!/BOOT-INF/lib/multi.jar!/a");
+    assertEquals(expected, scanner.findResourceNames("a", nested));
+    URL stored = new URL("jar:" + app.toUri() + "!/BOOT-INF/lib/stored.jar!/a");
+    assertEquals(expected, scanner.findResourceNames("a", stored));
+
+    // versioned entries are ordinary entries of a jar that is not multi-release
+    URL plainUrl = new URL("jar:" + plain.toUri() + "!/META-INF/versions");
+    assertTrue(scanner.findResourceNames("META-INF/versions", plainUrl).contains("META-INF/versions/11/a/Both.class"));
+    assertEquals(Set.of("a/Base.class", "a/Both.class"), scanner.findResourceNames("a", new URL("jar:" + plain.toUri() + "!/a")));
+  }
+
+  private static byte[] multiReleaseJar(boolean multiRelease) throws IOException {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    if (multiRelease) {
+      manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      zip.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+      manifest.write(zip);
+      put(zip, "a/Base.class", "base");
+      put(zip, "a/Both.class", "base");
+      put(zip, "META-INF/versions/");
+      put(zip, "META-INF/versions/9/");
+      put(zip, "META-INF/versions/9/a/Both.class", "9");
+      put(zip, "META-INF/versions/11/a/Both.class", "11");
+      put(zip, "META-INF/versions/11/a/Eleven.class", "11");
+      put(zip, "META-INF/versions/999/a/Future.class", "999");
+    }
+    return out.toByteArray();
+  }
+
+  private static void put(ZipOutputStream zip, String name, String... content) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    for (String value : content) {
+      zip.write(value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ScannedResource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ModuleClassPathLocationScanner.
+ */
+public class ModuleClassPathLocationScannerTest {
+
+  @Test
+  public void findResourceNames_jrt() throws Exception {
+    ModuleClassPathLocationScanner scanner = new ModuleClassPathLocationScanner();
+
+    Set<String> atomic = scanner.findResourceNames("java/util/concurrent/atomic", new URL("jrt:/java.base/java/util/concurrent/atomic"));
+    Set<String> concurrent = scanner.findResourceNames("java/util/concurrent", new URL("jrt:/java.base/java/util/concurrent"));
+
+    assertEquals(1, scanner.moduleIndexCount());
+    assertTrue(atomic.contains("java/util/concurrent/atomic/AtomicBoolean.class"));
+    assertTrue(concurrent.containsAll(atomic));
+    for (String name : atomic) {
+      assertTrue(name.startsWith("java/util/concurrent/atomic/"));
+    }
+    Set<String> filtered = scanner.findResourceNames("java/util/concurrent", new URL("jrt:/java.base/java/util/concurrent"), ResourceFilter.inDirectory("locks"));
+    assertTrue(filtered.contains("java/util/concurrent/locks/ReentrantLock.class"));
+    assertFalse(filtered.contains("java/util/concurrent/atomic/AtomicBoolean.class"));
+  }
+
+  @Test
+  public void findResourceNames_unknownModule() {
+    ModuleClassPathLocationScanner scanner = new ModuleClassPathLocationScanner();
+    assertThrows(IOException.class, () -> scanner.findResourceNames("a", new URL("jrt:/no.such.module/a")));
+  }
+
+  @Test
+  public void scanForResources_jrtLocationUrl() {
+    ClassLoader parent = Thread.currentThread().getContextClassLoader();
+    ClassLoader loader = new ClassLoader(parent) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        if ("java/util/concurrent/atomic".equals(name)) {
+          return Collections.enumeration(List.of(new URL("jrt:/java.base/java/util/concurrent/atomic")));
+        }
+        return super.getResources(name);
+      }
+    };
+    ClassPathScanner classPathScanner = new ClassPathScanner(loader);
+    List<Resource> resources = classPathScanner.scanForResources(new Location("java/util/concurrent/atomic"), ResourceFilter.bySuffix("Boolean.class"));
+
+    assertEquals(1, resources.size());
+    ScannedResource resource = (ScannedResource) resources.get(0);
+    assertEquals("java/util/concurrent/atomic/AtomicBoolean.class", resource.location());
+    assertTrue(resource.loadAsBytes().length > 0);
+  }
+}
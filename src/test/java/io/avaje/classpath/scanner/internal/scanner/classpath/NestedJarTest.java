@@ -0,0 +1,84 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for scanning jars nested in a fat jar.
+ */
+public class NestedJarTest {
+
+  @Test
+  public void findResourceNames_nestedJars(@TempDir Path dir) throws IOException {
+    Path app = dir.resolve("app.jar");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(app))) {
+      zip.putNextEntry(new ZipEntry("BOOT-INF/classes/db/migration/V1__classes.sql"));
+      zip.putNextEntry(new ZipEntry("db/migration/V0__outer.sql"));
+      putStored(zip, "BOOT-INF/lib/stored.jar", jar("db/migration/V2__stored.sql", "other/Other.class"));
+      zip.putNextEntry(new ZipEntry("BOOT-INF/lib/deflated.jar"));
+      zip.write(jar("db/migration/V3__deflated.sql", "db/migration/sub/V4__deflated.sql"));
+    }
+    String appUrl = "jar:" + app.toUri() + "!/";
+    JarFileClassPathLocationScanner scanner = new JarFileClassPathLocationScanner();
+
+    Set<String> stored = scanner.findResourceNames("db/migration", new URL(appUrl + "BOOT-INF/lib/stored.jar!/db/migration"));
+    assertEquals(Set.of("db/migration/V2__stored.sql"), stored);
+
+    Set<String> deflated = scanner.findResourceNames("db/migration", new URL(appUrl + "BOOT-INF/lib/deflated.jar!/db/migration"));
+    assertEquals(Set.of("db/migration/V3__deflated.sql", "db/migration/sub/V4__deflated.sql"), deflated);
+
+    Set<String> classes = scanner.findResourceNames("db/migration", new URL(appUrl + "BOOT-INF/classes!/db/migration"));
+    assertEquals(Set.of("db/migration/V1__classes.sql"), classes);
+
+    Set<String> outer = scanner.findResourceNames("db/migration", new URL(appUrl + "db/migration"));
+    assertEquals(Set.of("db/migration/V0__outer.sql"), outer);
+
+    // the Spring Boot 3.2+ form (the jar handler of the JDK does not accept it so use a stub handler)
+    String nestedFile = "nested:" + app.toUri().getPath() + "/!BOOT-INF/lib/stored.jar!/db/migration";
+    Set<String> nestedForm = scanner.findResourceNames("db/migration", new URL("jar", null, -1, nestedFile, new StubHandler()));
+    assertEquals(stored, nestedForm);
+  }
+
+  private static final class StubHandler extends URLStreamHandler {
+    @Override
+    protected URLConnection openConnection(URL url) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static void putStored(ZipOutputStream zip, String name, byte[] content) throws IOException {
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(content.length);
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    entry.setCrc(crc.getValue());
+    zip.putNextEntry(entry);
+    zip.write(content);
+  }
+
+  private static byte[] jar(String... names) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (String name : names) {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(name.getBytes());
+      }
+    }
+    return out.toByteArray();
+  }
+}
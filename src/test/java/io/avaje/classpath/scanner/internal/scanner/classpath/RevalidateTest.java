@@ -0,0 +1,146 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.internal.ScanOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for revalidating cached roots.
+ */
+public class RevalidateTest {
+
+  private final Location location = new Location("db/migration");
+
+  @Test
+  public void directoryChanged(@TempDir Path dir) throws IOException {
+    Path migration = Files.createDirectories(dir.resolve("db/migration"));
+    Files.writeString(migration.resolve("V1__init.sql"), "");
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+      ClassPathScanner revalidating = new ClassPathScanner(loader, new ScanOptions().revalidate(true).revalidateInterval(Duration.ZERO));
+      ClassPathScanner plain = new ClassPathScanner(loader);
+      assertEquals(List.of("V1__init.sql"), names(revalidating));
+      assertEquals(List.of("V1__init.sql"), names(plain));
+
+      Path sub = Files.createDirectories(migration.resolve("sub"));
+      Files.writeString(sub.resolve("V2__more.sql"), "");
+      touch(migration);
+
+      assertEquals(List.of("V1__init.sql", "V2__more.sql"), names(revalidating));
+      assertEquals(List.of("V1__init.sql"), names(plain));
+    }
+  }
+
+  @Test
+  public void jarChanged(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("lib.jar");
+    writeJar(dir, jar, "db/migration/V1__init.sql");
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, null)) {
+      ClassPathScanner revalidating = new ClassPathScanner(loader, new ScanOptions().revalidate(true).revalidateInterval(Duration.ZERO));
+      assertEquals(List.of("V1__init.sql"), names(revalidating));
+
+      writeJar(dir, jar, "db/migration/V1__init.sql", "db/migration/V2__more.sql");
+      assertEquals(List.of("V1__init.sql", "V2__more.sql"), names(revalidating));
+      assertEquals(List.of("V1__init.sql", "V2__more.sql"), names(revalidating));
+    }
+  }
+
+  @Test
+  public void checkedAtMostOncePerInterval(@TempDir Path dir) throws IOException {
+    Path migration = Files.createDirectories(dir.resolve("db/migration"));
+    Files.writeString(migration.resolve("V1__init.sql"), "");
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+      ClassPathScanner revalidating = new ClassPathScanner(loader, new ScanOptions().revalidate(true).revalidateInterval(Duration.ofHours(1)));
+      assertEquals(List.of("V1__init.sql"), names(revalidating));
+
+      Files.writeString(migration.resolve("V2__more.sql"), "");
+      touch(migration);
+
+      // not checked again within the interval
+      assertEquals(List.of("V1__init.sql"), names(revalidating));
+    }
+  }
+
+  @Test
+  public void classIndexRebuiltOnlyWhenRootChanged(@TempDir Path dir) throws IOException {
+    Path dummy = Files.createDirectories(dir.resolve("org/example/dummy"));
+    copyClass(dummy, "DummyAbstractJdbcMigration");
+    copyClass(dummy, "Version3dot5");
+    Location classes = new Location("org/example/dummy");
+    String type = "org.example.thing.SomeTestInterface";
+    try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, null)) {
+      ClassPathScanner eachScan = new ClassPathScanner(loader, new ScanOptions().revalidate(true).revalidateInterval(Duration.ZERO));
+      ClassPathScanner hourly = new ClassPathScanner(loader, new ScanOptions().revalidate(true).revalidateInterval(Duration.ofHours(1)));
+      List<String> initial = List.of("org.example.dummy.DummyAbstractJdbcMigration", "org.example.dummy.Version3dot5");
+      assertEquals(initial, eachScan.scanForSubtypeNames(classes, type, null));
+      assertEquals(initial, hourly.scanForSubtypeNames(classes, type, null));
+
+      // an unchanged root serves the cached index
+      long hits = eachScan.cacheStats().hitCount();
+      assertEquals(initial, eachScan.scanForSubtypeNames(classes, type, null));
+      assertTrue(eachScan.cacheStats().hitCount() > hits);
+
+      copyClass(dummy, "V4__DummyExtendedAbstractJdbcMigration");
+      touch(dummy);
+      assertEquals(List.of("org.example.dummy.DummyAbstractJdbcMigration", "org.example.dummy.V4__DummyExtendedAbstractJdbcMigration", "org.example.dummy.Version3dot5"),
+        eachScan.scanForSubtypeNames(classes, type, null));
+      // not checked again within the interval
+      assertEquals(initial, hourly.scanForSubtypeNames(classes, type, null));
+    }
+  }
+
+  private static void copyClass(Path dummy, String name) throws IOException {
+    try (InputStream in = RevalidateTest.class.getResourceAsStream("/org/example/dummy/" + name + ".class")) {
+      Files.copy(in, dummy.resolve(name + ".class"));
+    }
+  }
+
+  private List<String> names(ClassPathScanner scanner) {
+    return scanner.scanForResources(location, FilterResource.bySuffix(".sql")).stream()
+      .map(Resource::name)
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Move the last modified time forward to not depend on the file system timestamp resolution.
+   */
+  private static void touch(Path path) throws IOException {
+    FileTime time = Files.getLastModifiedTime(path);
+    Files.setLastModifiedTime(path, FileTime.fromMillis(time.toMillis() + 2000));
+  }
+
+  private static void writeJar(Path dir, Path jar, String... names) throws IOException {
+    Path temp = Files.createTempFile(dir, "lib", ".tmp");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(temp))) {
+      // the directory entries are required for the ClassLoader to find the location
+      zip.putNextEntry(new ZipEntry("db/"));
+      zip.putNextEntry(new ZipEntry("db/migration/"));
+      for (String name : names) {
+        zip.putNextEntry(new ZipEntry(name));
+      }
+    }
+    if (Files.exists(jar)) {
+      Files.setLastModifiedTime(temp, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 2000));
+    }
+    Files.move(temp, jar, StandardCopyOption.REPLACE_EXISTING);
+  }
+}
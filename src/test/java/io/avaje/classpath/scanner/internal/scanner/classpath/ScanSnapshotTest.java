@@ -0,0 +1,97 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.internal.ScanOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ScanSnapshot.
+ */
+public class ScanSnapshotTest {
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  @Test
+  public void writeThenRead(@TempDir Path dir) {
+    Path file = dir.resolve("scan.snapshot");
+    Location location = new Location("classpath:migration/sql");
+
+    ClassPathScanner scanner = new ClassPathScanner(classLoader, new ScanOptions().snapshotFile(file));
+    List<String> first = locations(scanner.scanForResources(location, FilterResource.bySuffix(".sql")));
+    assertFalse(Files.exists(file));
+    scanner.writeSnapshot();
+    assertTrue(Files.exists(file));
+
+    ScanSnapshot snapshot = ScanSnapshot.read(file, classLoader);
+    assertNotNull(snapshot.locationUrls(location));
+    assertNull(snapshot.locationUrls(new Location("classpath:other")));
+
+    ClassPathScanner warmScanner = new ClassPathScanner(classLoader, new ScanOptions().snapshotFile(file));
+    List<String> second = locations(warmScanner.scanForResources(location, FilterResource.bySuffix(".sql")));
+    assertEquals(4, second.size());
+    assertEquals(first, second);
+  }
+
+  @Test
+  public void scanAll_derivedLocationsWritten(@TempDir Path dir) {
+    Path file = dir.resolve("scan.snapshot");
+    Location parent = new Location("classpath:migration");
+    Location child = new Location("classpath:migration/subdir");
+
+    ClassPathScanner scanner = new ClassPathScanner(classLoader, new ScanOptions().snapshotFile(file));
+    Map<Location, Predicate<String>> requests = new LinkedHashMap<>();
+    requests.put(child, FilterResource.bySuffix(".sql"));
+    requests.put(parent, FilterResource.bySuffix(".sql"));
+    scanner.scanAll(requests);
+    scanner.writeSnapshot();
+
+    // the child names are derived from the parent scan and are written as well
+    ScanSnapshot snapshot = ScanSnapshot.read(file, classLoader);
+    List<URL> urls = snapshot.locationUrls(child);
+    assertNotNull(urls);
+    for (URL url : urls) {
+      assertEquals(3, snapshot.resourceNames(url).size(), url.toString());
+    }
+  }
+
+  @Test
+  public void read_fingerprintMismatch_ignored(@TempDir Path dir) {
+    Path file = dir.resolve("scan.snapshot");
+    Location location = new Location("classpath:migration/sql");
+
+    ClassPathScanner scanner = new ClassPathScanner(classLoader, new ScanOptions().snapshotFile(file));
+    scanner.scanForResources(location, FilterResource.bySuffix(".sql"));
+    scanner.trim();
+
+    long fingerprint = ScanSnapshot.fingerprint(classLoader);
+    assertNotNull(ScanSnapshot.read(file, fingerprint).locationUrls(location));
+    assertNull(ScanSnapshot.read(file, fingerprint + 1).locationUrls(location));
+  }
+
+  @Test
+  public void read_corruptFile_ignored(@TempDir Path dir) throws Exception {
+    Path file = dir.resolve("scan.snapshot");
+    Files.write(file, new byte[]{1, 2, 3});
+
+    ClassPathScanner scanner = new ClassPathScanner(classLoader, new ScanOptions().snapshotFile(file));
+    assertEquals(4, scanner.scanForResources(new Location("classpath:migration/sql"), FilterResource.bySuffix(".sql")).size());
+  }
+
+  private static List<String> locations(List<Resource> resources) {
+    return resources.stream().map(Resource::location).collect(Collectors.toList());
+  }
+}
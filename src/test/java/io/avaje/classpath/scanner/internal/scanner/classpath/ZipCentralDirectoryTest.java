@@ -0,0 +1,111 @@
+package io.avaje.classpath.scanner.internal.scanner.classpath;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ZipCentralDirectory and the JarIndex built from it.
+ */
+public class ZipCentralDirectoryTest {
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  @Test
+  public void read_sameAsJarFile() throws Exception {
+    String url = classLoader.getResource("org/junit/jupiter/api").getFile();
+    Path jar = Paths.get(new java.net.URI(url.substring(0, url.indexOf("!/"))));
+
+    JarIndex index = JarIndex.read(jar);
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      JarIndex expected = JarIndex.of(jarFile);
+      assertEquals(jarFile.size(), index.size());
+      assertEquals(expected.findResourceNames("org/junit/jupiter/api"), index.findResourceNames("org/junit/jupiter/api"));
+      assertEquals(expected.findResourceNames("org/junit"), index.findResourceNames("org/junit"));
+    }
+  }
+
+  @Test
+  public void read_withPrependedDataAndComment(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("launch.jar");
+    try (OutputStream out = Files.newOutputStream(jar)) {
+      out.write("#!/bin/sh\nexec java -jar \"$0\"\n".getBytes(StandardCharsets.UTF_8));
+      try (ZipOutputStream zip = new ZipOutputStream(out)) {
+        zip.setComment("a comment");
+        zip.putNextEntry(new ZipEntry("app/"));
+        zip.putNextEntry(new ZipEntry("app/Main.class"));
+        zip.putNextEntry(new ZipEntry("app/été.txt"));
+        zip.putNextEntry(new ZipEntry("other/Other.class"));
+      }
+    }
+    JarIndex index = JarIndex.read(jar);
+    assertEquals(4, index.size());
+    assertEquals(Set.of("app/", "app/Main.class", "app/été.txt"), index.findResourceNames("app"));
+  }
+
+  @Test
+  public void read_zip64(@TempDir Path dir) throws IOException {
+    Path jar = dir.resolve("zip64.jar");
+    Files.write(jar, zip64("a/One.class", "a/Two.class", "b/Three.class"));
+
+    JarIndex index = JarIndex.read(jar);
+    assertEquals(3, index.size());
+    assertEquals(Set.of("a/One.class", "a/Two.class"), index.findResourceNames("a"));
+    try (ZipFile zipFile = new ZipFile(jar.toFile())) {
+      assertEquals(3, zipFile.size());
+    }
+  }
+
+  @Test
+  public void read_notZip(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("not.jar");
+    Files.writeString(file, "not a zip file but long enough to look for one");
+    assertThrows(ZipException.class, () -> ZipCentralDirectory.read(file));
+  }
+
+  /**
+   * Return a zip of empty stored entries that uses the ZIP64 end of central directory.
+   */
+  private static byte[] zip64(String... names) {
+    ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    int[] offsets = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      offsets[i] = buffer.position();
+      byte[] name = names[i].getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(0x04034b50).putShort((short) 45).putShort((short) 0).putShort((short) 0)
+        .putInt(0).putInt(0).putInt(0).putInt(0).putShort((short) name.length).putShort((short) 0).put(name);
+    }
+    int cenOffset = buffer.position();
+    for (int i = 0; i < names.length; i++) {
+      byte[] name = names[i].getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(0x02014b50).putShort((short) 45).putShort((short) 45).putShort((short) 0).putShort((short) 0)
+        .putInt(0).putInt(0).putInt(0).putInt(0).putShort((short) name.length).putShort((short) 0).putShort((short) 0)
+        .putShort((short) 0).putShort((short) 0).putInt(0).putInt(offsets[i]).put(name);
+    }
+    int cenSize = buffer.position() - cenOffset;
+    int zip64Eocd = buffer.position();
+    buffer.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0)
+      .putLong(names.length).putLong(names.length).putLong(cenSize).putLong(cenOffset);
+    buffer.putInt(0x07064b50).putInt(0).putLong(zip64Eocd).putInt(1);
+    buffer.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 0xFFFF).putShort((short) 0xFFFF)
+      .putInt(0xFFFFFFFF).putInt(0xFFFFFFFF).putShort((short) 0);
+    return Arrays.copyOf(buffer.array(), buffer.position());
+  }
+}
@@ -17,12 +17,15 @@ package io.avaje.classpath.scanner.internal.scanner.filesystem;
 
 import io.avaje.classpath.scanner.FilterResource;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.internal.UrlUtils;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -40,4 +43,18 @@ public class FileSystemScannerMediumTest {
         Set<String> resources = new FileSystemScanner().findResourceNamesFromFileSystem("junk-empty", emptyDir);
         assertTrue(resources.isEmpty());
     }
+
+    @Test
+    public void nestedDirectories() throws Exception {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        File dir = new File(UrlUtils.toFilePath(classLoader.getResource("migration/subdir")));
+
+        Set<String> resources = new FileSystemScanner().findResourceNamesFromFileSystem(dir.getPath(), dir);
+
+        assertEquals(3, resources.size());
+        Iterator<String> iterator = resources.iterator();
+        assertEquals(new File(dir, "V1_1__Populate_table.sql").getPath(), iterator.next());
+        assertEquals(new File(dir, "dir1/V1__First.sql").getPath(), iterator.next());
+        assertEquals(new File(dir, "dir2/V2_0__Add_foreign_key.sql").getPath(), iterator.next());
+    }
 }
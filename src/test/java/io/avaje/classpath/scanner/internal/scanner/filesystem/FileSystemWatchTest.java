@@ -0,0 +1,60 @@
+package io.avaje.classpath.scanner.internal.scanner.filesystem;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceWatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSystemWatchTest {
+
+  @Test
+  public void watch(@TempDir Path dir) throws Exception {
+    Files.writeString(dir.resolve("V1__init.sql"), "");
+    FileSystemScanner scanner = new FileSystemScanner();
+    try (ResourceWatch watch = scanner.watch(new Location("filesystem:" + dir))) {
+      BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+      watch.addListener((change, resourceName) -> changes.add(change + " " + Path.of(resourceName).getFileName()));
+      assertEquals(List.of("V1__init.sql"), names(watch));
+
+      Path sub = Files.createDirectories(dir.resolve("sub"));
+      Files.writeString(sub.resolve("V2__more.sql"), "");
+      assertEquals("ADDED V2__more.sql", changes.poll(10, TimeUnit.SECONDS));
+      assertEquals(List.of("V1__init.sql", "V2__more.sql"), names(watch));
+
+      Files.delete(dir.resolve("V1__init.sql"));
+      assertEquals("DELETED V1__init.sql", next(changes, "DELETED"));
+      assertEquals(List.of("V2__more.sql"), names(watch));
+    }
+  }
+
+  @Test
+  public void watch_notDirectory(@TempDir Path dir) {
+    FileSystemScanner scanner = new FileSystemScanner();
+    assertThrows(IllegalArgumentException.class, () -> scanner.watch(new Location("filesystem:" + dir.resolve("missing"))));
+  }
+
+  private static String next(BlockingQueue<String> changes, String prefix) throws InterruptedException {
+    String change;
+    do {
+      change = changes.poll(10, TimeUnit.SECONDS);
+    } while (change != null && !change.startsWith(prefix));
+    return change;
+  }
+
+  private static List<String> names(ResourceWatch watch) {
+    return watch.resources(FilterResource.bySuffix(".sql")).stream().map(Resource::name).collect(Collectors.toList());
+  }
+}
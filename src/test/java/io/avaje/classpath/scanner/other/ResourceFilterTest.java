@@ -0,0 +1,63 @@
+package io.avaje.classpath.scanner.other;
+
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.internal.ResourceFilterMatcher;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResourceFilterTest {
+
+  @Test
+  public void suffix() {
+    ResourceFilter filter = ResourceFilter.bySuffix(".sql");
+    assertTrue(filter.matches("db/migration", "db/migration/V1__init.sql"));
+    assertTrue(filter.matches("db/migration", "db/migration/v2/V2__more.sql"));
+    assertFalse(filter.matches("db/migration", "db/migration/V1__init.txt"));
+    assertFalse(filter.matches("db/migration", "db/migration/sql/"));
+  }
+
+  @Test
+  public void glob() {
+    ResourceFilter filter = ResourceFilter.byGlob("V*__*.sql");
+    assertTrue(filter.matches("", "V1__init.sql"));
+    assertTrue(filter.matches("", "sub/V1_2__init.sql"));
+    assertFalse(filter.matches("", "R__init.sql"));
+    assertFalse(filter.matches("", "Vinit.sql"));
+    assertTrue(ResourceFilter.byGlob("V?.txt").matches("", "V1.txt"));
+    assertFalse(ResourceFilter.byGlob("V?.txt").matches("", "V12.txt"));
+  }
+
+  @Test
+  public void maxDepth() {
+    ResourceFilter filter = ResourceFilter.all().maxDepth(0);
+    assertTrue(filter.matches("db", "db/a.sql"));
+    assertFalse(filter.matches("db", "db/sub/a.sql"));
+    assertTrue(ResourceFilterMatcher.includeDirectory(filter, ""));
+    assertFalse(ResourceFilterMatcher.includeDirectory(filter, "sub"));
+    assertTrue(ResourceFilterMatcher.includeDirectory(ResourceFilter.all().maxDepth(1), "sub"));
+    assertFalse(ResourceFilterMatcher.includeDirectory(ResourceFilter.all().maxDepth(1), "sub/deeper"));
+  }
+
+  @Test
+  public void directory() {
+    ResourceFilter filter = ResourceFilter.inDirectory("/v2/pg/").suffix(".sql");
+    assertTrue(filter.matches("db", "db/v2/pg/a.sql"));
+    assertTrue(filter.matches("db", "db/v2/pg/more/a.sql"));
+    assertFalse(filter.matches("db", "db/v2/a.sql"));
+    assertFalse(filter.matches("db", "db/v2/pgsql/a.sql"));
+    assertTrue(ResourceFilterMatcher.includeDirectory(filter, "v2"));
+    assertTrue(ResourceFilterMatcher.includeDirectory(filter, "v2/pg/more"));
+    assertFalse(ResourceFilterMatcher.includeDirectory(filter, "v1"));
+    assertFalse(ResourceFilterMatcher.includeDirectory(filter, "v2/pgsql"));
+  }
+
+  @Test
+  public void emptyLocation() {
+    ResourceFilter filter = ResourceFilter.inDirectory("db").maxDepth(1);
+    assertTrue(filter.matches("", "db/a.sql"));
+    assertFalse(filter.matches("", "a.sql"));
+    assertFalse(filter.matches("", "db/sub/a.sql"));
+  }
+}
@@ -0,0 +1,102 @@
+package io.avaje.classpath.scanner.other;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.core.ClassInfo;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ScanListener;
+import io.avaje.classpath.scanner.core.Scanner;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+import org.example.thing.SomeTestInterface;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScanListenerTest {
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  private final List<String> events = new CopyOnWriteArrayList<>();
+
+  private final ScanListener listener = new ScanListener() {
+    @Override
+    public void locationResolved(Location location, int urlCount, long nanos, boolean cacheHit) {
+      events.add("resolved " + location.path() + " hit:" + cacheHit);
+    }
+
+    @Override
+    public void rootScanned(Location location, URL url, String protocol, int entryCount, long nanos, boolean cacheHit) {
+      assertTrue(nanos >= 0);
+      events.add("root " + location.path() + " " + protocol + " entries:" + entryCount + " hit:" + cacheHit);
+    }
+
+    @Override
+    public void resourcesFiltered(Location location, int foundCount, int matchCount) {
+      events.add("filtered " + location.path() + " " + foundCount + "/" + matchCount);
+    }
+
+    @Override
+    public void classLoaded(String className, long nanos) {
+      events.add("loaded " + className);
+    }
+
+    @Override
+    public void classRejected(String className, boolean loaded) {
+      events.add("rejected " + className + " loaded:" + loaded);
+    }
+  };
+
+  @Test
+  public void scanForResources_events() {
+    Scanner scanner = Scanner.builder(classLoader).listener(listener).build();
+
+    scanner.scanForResources(new Location("migration/sql"), FilterResource.bySuffix("__First.sql"));
+    assertEquals("resolved migration/sql hit:false", events.get(0));
+    assertTrue(events.contains("root migration/sql file entries:4 hit:false"));
+    assertEquals("filtered migration/sql 4/1", events.get(events.size() - 1));
+
+    events.clear();
+    scanner.scanForResources(new Location("migration/sql"), FilterResource.bySuffix("__First.sql"));
+    assertEquals("resolved migration/sql hit:true", events.get(0));
+    assertTrue(events.contains("root migration/sql file entries:4 hit:true"));
+    assertFalse(events.contains("root migration/sql file entries:4 hit:false"));
+    assertEquals("filtered migration/sql 4/1", events.get(events.size() - 1));
+  }
+
+  @Test
+  public void scanForResources_filesystemResourceFilter_noFilteredEvent() {
+    Scanner scanner = Scanner.builder(classLoader).listener(listener).build();
+    Location location = new Location("filesystem:" + UrlUtils.toFilePath(classLoader.getResource("migration/subdir")));
+
+    assertEquals(3, scanner.scanForResources(location, ResourceFilter.bySuffix(".sql")).size());
+    assertTrue(events.stream().anyMatch(event -> event.startsWith("root ")));
+    assertTrue(events.stream().noneMatch(event -> event.startsWith("filtered ")));
+  }
+
+  @Test
+  public void scanForClasses_events() {
+    Scanner scanner = Scanner.builder(classLoader).listener(listener).build();
+
+    scanner.scanForClasses(new Location("org/example/dummy"), ClassInfo::isConcrete, SomeTestInterface.class::isAssignableFrom);
+
+    assertTrue(events.contains("rejected org.example.dummy.DummyAbstractJdbcMigration loaded:false"));
+    assertTrue(events.contains("loaded org.example.dummy.Version3dot5"));
+    assertTrue(events.contains("rejected org.example.dummy.V2__InterfaceBasedMigration loaded:true"));
+    assertFalse(events.contains("loaded org.example.dummy.DummyAbstractJdbcMigration"));
+  }
+
+  @Test
+  public void builderChangedAfterBuild_scannerUnaffected() {
+    Scanner.Builder builder = Scanner.builder(classLoader).listener(listener);
+    Scanner scanner = builder.build();
+    builder.listener(new ScanListener() { }).parallel(command -> fail("executor set after build used"));
+
+    // META-INF is in several roots which would be scanned using the executor
+    assertFalse(scanner.scanForResources(new Location("META-INF"), FilterResource.bySuffix(".MF")).isEmpty());
+    assertEquals("filtered META-INF", events.get(events.size() - 1).substring(0, 17));
+  }
+}
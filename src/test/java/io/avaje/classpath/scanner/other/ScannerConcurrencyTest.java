@@ -0,0 +1,76 @@
+package io.avaje.classpath.scanner.other;
+
+import io.avaje.classpath.scanner.FilterResource;
+import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.Scanner;
+import org.example.thing.SomeTestInterface;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScannerConcurrencyTest {
+
+  private static final int THREADS = 16;
+  private static final int ITERATIONS = 50;
+
+  private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+  private static final String[] LOCATIONS = {"migration", "migration/sql", "migration/dbsupport", "org/junit/jupiter/api", "scantest"};
+
+  @Test
+  public void sharedScanner_manyThreads() throws Exception {
+
+    List<List<String>> expectedResources = new ArrayList<>();
+    Scanner reference = new Scanner(classLoader);
+    for (String location : LOCATIONS) {
+      expectedResources.add(locations(reference.scanForResources(new Location(location), FilterResource.bySuffix(""))));
+    }
+    Predicate<Class<?>> predicate = SomeTestInterface.class::isAssignableFrom;
+    List<Class<?>> expectedClasses = reference.scanForClasses(new Location("org/example"), predicate);
+
+    Scanner scanner = new Scanner(classLoader);
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final int offset = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < ITERATIONS; i++) {
+            int pos = (offset + i) % LOCATIONS.length;
+            List<Resource> resources = scanner.scanForResources(new Location(LOCATIONS[pos]), FilterResource.bySuffix(""));
+            assertEquals(expectedResources.get(pos), locations(resources));
+            if (i % 5 == 0) {
+              assertEquals(expectedClasses, scanner.scanForClasses(new Location("org/example"), predicate));
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(expectedClasses.size() > 0);
+  }
+
+  private static List<String> locations(List<Resource> resources) {
+    return resources.stream().map(Resource::location).collect(Collectors.toList());
+  }
+}
@@ -2,17 +2,45 @@ package io.avaje.classpath.scanner.other;
 
 import io.avaje.classpath.scanner.FilterResource;
 import io.avaje.classpath.scanner.Resource;
+import io.avaje.classpath.scanner.core.ClassInfo;
+import io.avaje.classpath.scanner.core.ClassRef;
 import io.avaje.classpath.scanner.core.Location;
+import io.avaje.classpath.scanner.core.ResourceFilter;
+import io.avaje.classpath.scanner.core.ScanListener;
+import io.avaje.classpath.scanner.core.ScannedResource;
 import io.avaje.classpath.scanner.core.Scanner;
+import io.avaje.classpath.scanner.internal.ResourceReader;
+import io.avaje.classpath.scanner.internal.UrlUtils;
+import org.example.annotated.MarkedController;
+import org.example.annotated.MarkedMigration;
+import org.example.annotated.Marker;
+import org.example.annotated.Unmarked;
+import org.example.dummy.DummyAbstractJdbcMigration;
+import org.example.dummy.V4__DummyExtendedAbstractJdbcMigration;
+import org.example.dummy.Version3dot5;
 import org.example.thing.SomeTestInterface;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
 
+import java.io.InputStream;
+import java.lang.reflect.Modifier;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class ScannerTest {
 
@@ -53,4 +81,227 @@ public class ScannerTest {
     assertEquals(classes.size(), classes3.size());
 
   }
+
+  @Test
+  public void testScanForClassRefs() {
+
+    Scanner scanner = new Scanner(classLoader);
+    List<ClassRef> refs = scanner.scanForClassRefs("org/example/dummy");
+    assertTrue(refs.size() >= 3);
+    for (ClassRef ref : refs) {
+      assertFalse(ref.isLoaded());
+      assertTrue(ref.resourceName().startsWith("org/example/dummy/"));
+      assertEquals(classLoader.getResource(ref.resourceName()).toExternalForm(), ref.root() + ref.resourceName());
+    }
+
+    // filter by name and only load those
+    List<Class<?>> classes = refs.stream()
+      .filter(ref -> ref.name().startsWith("org.example.dummy.V"))
+      .map(ClassRef::load)
+      .filter(SomeTestInterface.class::isAssignableFrom)
+      .collect(Collectors.toList());
+
+    assertEquals(2, classes.size());
+    ClassRef first = refs.get(0);
+    assertEquals("org.example.dummy.DummyAbstractJdbcMigration", first.name());
+    assertFalse(first.isLoaded());
+    assertSame(first.load(), first.load());
+    assertTrue(first.isLoaded());
+  }
+
+  @Test
+  public void testScanForResourcesParallel() {
+
+    Scanner scanner = new Scanner(classLoader);
+    Scanner parallelScanner = Scanner.builder(classLoader).parallel(true).build();
+
+    List<Resource> sequential = scanner.scanForResources(new Location("org"), FilterResource.bySuffix(".class"));
+    List<Resource> parallel = parallelScanner.scanForResources(new Location("org"), FilterResource.bySuffix(".class"));
+
+    assertTrue(sequential.size() > 100);
+    assertEquals(locations(sequential), locations(parallel));
+    assertEquals(scanner.scanForClasses("org/example", SomeTestInterface.class::isAssignableFrom),
+      parallelScanner.scanForClasses("org/example", SomeTestInterface.class::isAssignableFrom));
+  }
+
+  @Test
+  public void testStreamResources() {
+
+    Scanner scanner = new Scanner(classLoader);
+    List<Resource> resources = scanner.scanForResources(new Location("migration"), FilterResource.bySuffix(".sql"));
+
+    List<Resource> sorted = scanner.streamResources(new Location("migration"), FilterResource.bySuffix(".sql"), true).collect(Collectors.toList());
+    assertEquals(locations(resources), locations(sorted));
+
+    List<String> unsorted = scanner.streamResources("migration", FilterResource.bySuffix(".sql"), false)
+      .map(Resource::location)
+      .sorted()
+      .collect(Collectors.toList());
+    assertEquals(locations(resources), unsorted);
+
+    Optional<Resource> first = scanner.streamResources("scantest", FilterResource.bySuffix(".txt"), false).findFirst();
+    assertTrue(first.isPresent());
+    assertEquals("Hello", first.get().loadAsString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testStreamResourcesFileSystem() {
+
+    Scanner scanner = new Scanner(classLoader);
+    String dir = UrlUtils.toFilePath(classLoader.getResource("migration/subdir"));
+    Location location = new Location("filesystem:" + dir);
+
+    List<Resource> resources = scanner.scanForResources(location, FilterResource.bySuffix(".sql"));
+    assertEquals(3, resources.size());
+
+    List<String> unsorted = scanner.streamResources(location, FilterResource.bySuffix(".sql"), false)
+      .map(Resource::location)
+      .sorted()
+      .collect(Collectors.toList());
+    assertEquals(locations(resources), unsorted);
+    assertEquals(1, scanner.streamResources(location, FilterResource.bySuffix(".sql"), false).limit(1).count());
+  }
+
+  @Test
+  public void testScanForResourcesWithFilter() {
+
+    Scanner scanner = new Scanner(classLoader);
+    List<Resource> resources = scanner.scanForResources("migration/subdir", ResourceFilter.bySuffix(".sql").maxDepth(0));
+    assertEquals(1, resources.size());
+    assertEquals("V1_1__Populate_table.sql", resources.get(0).name());
+
+    resources = scanner.scanForResources("migration/subdir", ResourceFilter.inDirectory("dir2"));
+    assertEquals(1, resources.size());
+    assertEquals("V2_0__Add_foreign_key.sql", resources.get(0).name());
+
+    String dir = UrlUtils.toFilePath(classLoader.getResource("migration/subdir"));
+    Location location = new Location("filesystem:" + dir);
+    assertEquals(1, scanner.scanForResources(location, ResourceFilter.all().maxDepth(0)).size());
+    assertEquals(2, scanner.scanForResources(location, ResourceFilter.byGlob("V*_*__*.sql")).size());
+  }
+
+  @Test
+  public void testScanForResourcesWithFilterInJar() {
+
+    // same result with the filter pushed down into the jar index as with a predicate
+    Scanner scanner = new Scanner(classLoader);
+    ResourceFilter filter = ResourceFilter.inDirectory("extension").suffix(".class").maxDepth(1);
+    List<Resource> resources = scanner.scanForResources("org/junit/jupiter/api", filter);
+    assertTrue(resources.size() > 1);
+
+    List<Resource> expected = scanner.scanForResources("org/junit/jupiter/api", name -> filter.matches("org/junit/jupiter/api", name));
+    assertEquals(locations(expected), locations(resources));
+  }
+
+  @Test
+  public void testScanAll() {
+
+    Map<Location, Predicate<String>> requests = new LinkedHashMap<>();
+    requests.put(new Location("migration/subdir"), FilterResource.bySuffix(".sql"));
+    requests.put(new Location("migration"), FilterResource.bySuffix(".sql"));
+    requests.put(new Location("org/junit/jupiter/api/extension"), FilterResource.bySuffix(".class"));
+    requests.put(new Location("org/junit/jupiter/api"), FilterResource.bySuffix(".class"));
+    String dir = UrlUtils.toFilePath(classLoader.getResource("migration/subdir"));
+    requests.put(new Location("filesystem:" + dir), FilterResource.bySuffix(".sql"));
+
+    Map<Location, List<Resource>> all = new Scanner(classLoader).scanAll(requests);
+    assertEquals(List.copyOf(requests.keySet()), List.copyOf(all.keySet()));
+
+    Scanner scanner = new Scanner(classLoader);
+    requests.forEach((location, predicate) ->
+      assertEquals(locations(scanner.scanForResources(location, predicate)), locations(all.get(location)), location.toString()));
+    assertEquals(3, all.get(new Location("migration/subdir")).size());
+  }
+
+  @Test
+  public void testScannedResourceReadDirect() throws Exception {
+
+    Scanner scanner = new Scanner(classLoader);
+    List<Resource> resources = new ArrayList<>(scanner.scanForResources("migration", FilterResource.bySuffix(".sql")));
+    resources.addAll(scanner.scanForResources("org/junit/jupiter/api/extension", FilterResource.bySuffix(".class")));
+
+    Map<String, byte[]> read = new HashMap<>();
+    scanner.readAll(resources, (resource, content) -> read.put(resource.location(), content));
+    assertEquals(resources.size(), read.size());
+
+    ResourceReader reader = new ResourceReader();
+    for (Resource resource : resources) {
+      ScannedResource scanned = (ScannedResource) resource;
+      assertNotNull(scanned.root(), resource.location());
+      // read directly from the root rather than falling back to the ClassLoader
+      assertNotNull(reader.read(scanned.root(), resource.location()), resource.location());
+      byte[] expected;
+      try (InputStream inputStream = classLoader.getResourceAsStream(resource.location())) {
+        expected = inputStream.readAllBytes();
+      }
+      assertArrayEquals(expected, scanned.loadAsBytes(), resource.location());
+      assertArrayEquals(expected, read.get(resource.location()), resource.location());
+      try (InputStream inputStream = resource.inputStream()) {
+        assertArrayEquals(expected, inputStream.readAllBytes(), resource.location());
+      }
+    }
+    reader.close();
+  }
+
+  @Test
+  public void testScanForAnnotatedClasses() {
+
+    List<String> loaded = new ArrayList<>();
+    Scanner scanner = Scanner.builder(classLoader).listener(new ScanListener() {
+      @Override
+      public void classLoaded(String className, long nanos) {
+        loaded.add(className);
+      }
+    }).build();
+    assertEquals(List.of(MarkedController.class, MarkedMigration.class), scanner.scanForAnnotatedClasses("org/example", Marker.class));
+    // only the annotated classes are loaded
+    assertEquals(List.of(MarkedController.class.getName(), MarkedMigration.class.getName()), loaded);
+    assertEquals(List.of(MarkedController.class), scanner.scanForAnnotatedClasses("org/example", Deprecated.class));
+
+    Map<String, List<String>> index = scanner.annotationIndex("org/example");
+    assertEquals(List.of(MarkedController.class.getName(), MarkedMigration.class.getName()), index.get(Marker.class.getName()));
+
+    // the annotations in a jar
+    assertTrue(scanner.scanForAnnotatedClasses("org/junit/jupiter/api", FunctionalInterface.class).contains(Executable.class));
+  }
+
+  @Test
+  public void testScanForSubtypes() {
+
+    Scanner scanner = new Scanner(classLoader);
+    List<Class<?>> expected = scanner.scanForClasses("org/example", type ->
+      type != SomeTestInterface.class && SomeTestInterface.class.isAssignableFrom(type) && !Modifier.isAbstract(type.getModifiers()));
+    assertEquals(expected, scanner.scanForSubtypes("org/example", SomeTestInterface.class, ClassInfo::isConcrete));
+
+    // transitive through the abstract class and including it without a filter
+    assertEquals(List.of(DummyAbstractJdbcMigration.class.getName(), V4__DummyExtendedAbstractJdbcMigration.class.getName(),
+      Version3dot5.class.getName()), scanner.scanForSubtypeNames(new Location("org/example"), SomeTestInterface.class.getName(), null));
+    assertEquals(List.of(Unmarked.class.getName()), scanner.scanForSubtypeNames(new Location("org/example"), MarkedMigration.class.getName(), null));
+
+    // the hierarchy passes through a super type outside the location
+    assertEquals(List.of("org.junit.jupiter.api.extension.support.TypeBasedParameterResolver"),
+      scanner.scanForSubtypeNames(new Location("org/junit/jupiter/api/extension/support"), "org.junit.jupiter.api.extension.Extension", null));
+  }
+
+  @Test
+  public void testTrimAndClose() {
+
+    Scanner scanner = Scanner.builder(classLoader).maxCachedRoots(1).build();
+    scanner.scanForResources("migration", FilterResource.bySuffix(".sql"));
+    List<Resource> first = scanner.scanForResources("migration", FilterResource.bySuffix(".sql"));
+    assertTrue(scanner.cacheStats().hitCount() > 0);
+    assertTrue(scanner.cacheStats().size() > 0);
+
+    scanner.trim();
+    assertEquals(0, scanner.cacheStats().size());
+    List<Resource> afterTrim = scanner.scanForResources("migration", FilterResource.bySuffix(".sql"));
+    assertEquals(locations(first), locations(afterTrim));
+
+    scanner.close();
+    assertThrows(IllegalStateException.class, () -> scanner.scanForResources("migration", FilterResource.bySuffix(".sql")));
+  }
+
+  private static List<String> locations(List<Resource> resources) {
+    return resources.stream().map(Resource::location).collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,13 @@
+package org.example.annotated;
+
+@Deprecated
+@Marker(value = "controller", order = {1, 2}, kind = java.lang.annotation.ElementType.FIELD, type = String.class)
+public class MarkedController {
+
+  private final String name = "controller";
+
+  @Deprecated
+  public String name() {
+    return name;
+  }
+}
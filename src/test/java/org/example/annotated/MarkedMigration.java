@@ -0,0 +1,5 @@
+package org.example.annotated;
+
+@Marker
+public class MarkedMigration {
+}
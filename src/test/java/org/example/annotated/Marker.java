@@ -0,0 +1,21 @@
+package org.example.annotated;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Marker {
+
+  String value() default "";
+
+  int[] order() default {};
+
+  ElementType kind() default ElementType.TYPE;
+
+  Class<?> type() default Object.class;
+
+  Retention nested() default @Retention(RetentionPolicy.CLASS);
+}
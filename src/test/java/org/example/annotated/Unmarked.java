@@ -0,0 +1,4 @@
+package org.example.annotated;
+
+public class Unmarked extends MarkedMigration {
+}